@@ -24,9 +24,17 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
+// 通过 -PjmhIncludes=A,B 选择要运行的 benchmark，比如 -PjmhIncludes=ScalingBenchmark 运行规模扫描
+val jmhIncludes = providers.gradleProperty("jmhIncludes").getOrElse("IntegerPartitionBenchmark")
+// 结果文件的标记，通常使用提交的 hash，比如 -PjmhResultTag=$(git rev-parse --short HEAD)，便于对比不同提交的结果
+val jmhResultTag = providers.gradleProperty("jmhResultTag").getOrElse("latest")
+
 jmh {
-    includes = listOf("IntegerPartitionBenchmark") // include pattern (regular expression) for benchmarks to be executed
+    includes = jmhIncludes.split(",") // include pattern (regular expression) for benchmarks to be executed
     iterations = 5 // Number of measurement iterations to do.
+    profilers = listOf("gc") // Same as `-prof gc`, reports allocation rate per operation.
+    resultFormat = "JSON" // Machine-readable results, one file per tag under build/results/jmh.
+    resultsFile = layout.buildDirectory.file("results/jmh/results-$jmhResultTag.json")
 }
 
 tasks.register<JavaExec>("integer-partition") {
@@ -0,0 +1,49 @@
+package dev.carbonshow.algorithm.partition;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 并行枚举 (FORK_JOIN) 在不同并行度下的耗时，parallelism 为 1 时即顺序执行的基准，其他并行度与之相除得到加速比。
+ * 加数集合为 [1, partitioned]，60 对应约 97 万个划分方案，70 对应约 408 万个。
+ * <p>
+ * 并行度超过机器的核数时没有意义，单核机器上只能验证调度开销，需要在多核机器上运行才能观察加速比。
+ */
+@State(Scope.Benchmark)
+public class ForkJoinPartitionBenchmark {
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int parallelism;
+
+    @Param({"60", "70"})
+    private long partitioned;
+
+    private long[] addends;
+
+    private ForkJoinPool pool;
+
+    private DPIntegerPartition solver;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        addends = LongStream.rangeClosed(1, partitioned).toArray();
+        pool = new ForkJoinPool(parallelism);
+        solver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.FORK_JOIN, pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public int enumerate() {
+        return solver.solveWithPartitions(addends, partitioned).size();
+    }
+}
@@ -0,0 +1,85 @@
+package dev.carbonshow.algorithm.partition;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回放一段缓慢变化的加数数量序列，模拟撮合中连续的 tick：1~5 人的队伍凑 5 人，每个 tick 各种队伍的数量随机增减几个。
+ * 对比每次重新建模的 {@link DefaultMaxPartitions} 和保留模型并热启动的 {@link IncrementalMaxPartitions}，
+ * 每次调用回放整个序列，结果按单个 tick 计算。
+ */
+@State(Scope.Benchmark)
+public class IncrementalMaxPartitionBenchmark {
+
+    // 回放序列的长度
+    private static final int TICKS = 100;
+
+    final private long PARTITIONED = 5;
+
+    // 固定种子生成的随机游走序列，每次运行的输入完全相同
+    final private List<Map<Long, Long>> SEQUENCE = randomWalk(new long[]{30, 20, 12, 8, 6}, TICKS, 42);
+
+    private DefaultMaxPartitions solver;
+    private IncrementalMaxPartitions incrementalSolver;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        solver = new DefaultMaxPartitions();
+        incrementalSolver = new IncrementalMaxPartitions();
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long replayFromScratch() {
+        long total = 0;
+        for (var addends : SEQUENCE) {
+            total += PartitionData.totalPartitionsCount(solver.solve(addends, PARTITIONED));
+        }
+        return total;
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long replayIncremental() {
+        long total = 0;
+        for (var addends : SEQUENCE) {
+            total += PartitionData.totalPartitionsCount(incrementalSolver.solve(addends, PARTITIONED));
+        }
+        return total;
+    }
+
+    /**
+     * 生成随机游走的加数数量序列，每一步各加数数量变化 [-2, 2]，不小于 0
+     *
+     * @param initialCounts 加数 1, 2, 3... 的初始数量
+     * @param ticks         序列长度
+     * @param seed          随机种子
+     * @return 每个元素是一个 tick 的加数集合
+     */
+    private static List<Map<Long, Long>> randomWalk(long[] initialCounts, int ticks, long seed) {
+        var random = new Random(seed);
+        var counts = initialCounts.clone();
+        var sequence = new ArrayList<Map<Long, Long>>(ticks);
+        for (int t = 0; t < ticks; t++) {
+            var addends = new HashMap<Long, Long>();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = Math.max(0, counts[i] + random.nextInt(5) - 2);
+                addends.put(i + 1L, counts[i]);
+            }
+            sequence.add(addends);
+        }
+        return sequence;
+    }
+}
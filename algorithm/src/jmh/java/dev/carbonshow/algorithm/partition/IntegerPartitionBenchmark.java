@@ -2,6 +2,7 @@ package dev.carbonshow.algorithm.partition;
 
 import org.openjdk.jmh.annotations.*;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.LongStream;
 
@@ -16,14 +17,38 @@ import java.util.stream.LongStream;
  *     </li>
  *     <li>拆分整数 100。由于要所有可用方案，Constraint-Programming 的开销相比拆分 10，增加了近 3000 倍，每次运算约 20s</li>
  * </ul>
+ * 只计算划分数量时，对比带缓存的自顶向下实现 (MEMOIZED_RECURSION) 和自底向上实现 (TABLE_FILL)，规模分别为 10，100，1000。
+ * 两者的时间复杂度均为 O(M*N)，差异主要在于递归调用开销和缓存的访问模式。注意 1000 的划分数已经超出 long 范围，只用于衡量性能。
+ * <p>
+ * 滚动数组实现 (ROLLING_TABLE_FILL) 复用线程本地的单行缓冲区，配合 GC profiler 观察内存分配：
+ * TABLE_FILL 每次调用分配 (M+1)*(N+1) 个 long，而 ROLLING_TABLE_FILL 在预热后的 gc.alloc.rate.norm 应接近 0 B/op。
+ * build.gradle.kts 的 jmh 配置中已经启用了 gc profiler，等价于命令行的 -prof gc。
+ * <p>
+ * 并行实现 (FORK_JOIN) 使用公共 ForkJoinPool 枚举，计数直接使用滚动数组。不同并行度下的加速比见 {@link ForkJoinPartitionBenchmark}。
+ * <p>
+ * CPIntegerPartition 没有附加约束时，计数直接使用动态规划 (countWithCP10)；附加空的约束可以强制通过 CP 枚举计数
+ * (countWithCPEnumeration10)，两者的差异即 JNI 回调逐个枚举的开销。
+ * <p>
+ * {@link CachedIntegerPartition} 在多次调用之间缓存划分方案，partitionPlansCached10 预热后每次调用只是一次哈希查找。
+ * <p>
+ * 带约束的枚举 (constrainedPartitionPlans40) 在递归中剪枝，和枚举全部 16928 个划分后过滤 (filteredPartitionPlans40) 对比；
+ * 没有自定义判断时计数 (constrainedCount40) 完全不需要枚举。
  */
 @State(Scope.Benchmark)
 public class IntegerPartitionBenchmark {
     static long[] group10 = new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
     static long[] group100 = LongStream.rangeClosed(1, 100).toArray();
+    static long[] group1000 = LongStream.rangeClosed(1, 1000).toArray();
 
     final private DPIntegerPartition dpSolver = new DPIntegerPartition();
     final private CPIntegerPartition cpSolver = new CPIntegerPartition();
+    final private CPIntegerPartition cpEnumerationSolver = new CPIntegerPartition((model, counts) -> {
+    });
+    final private DPIntegerPartition memoizedSolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.MEMOIZED_RECURSION);
+    final private DPIntegerPartition tableFillSolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.TABLE_FILL);
+    final private DPIntegerPartition rollingSolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.ROLLING_TABLE_FILL);
+    final private DPIntegerPartition forkJoinSolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.FORK_JOIN);
+    final private CachedIntegerPartition cachedSolver = new CachedIntegerPartition(new DPIntegerPartition());
 
     @Fork(value = 1, warmups = 1)
     @Benchmark
@@ -56,4 +81,153 @@ public class IntegerPartitionBenchmark {
     public void solveWithCP100() {
         cpSolver.solveWithPartitions(group10, 100);
     }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithMemoized10() {
+        return memoizedSolver.solve(group10, 10);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithTableFill10() {
+        return tableFillSolver.solve(group10, 10);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithMemoized100() {
+        return memoizedSolver.solve(group100, 100);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithTableFill100() {
+        return tableFillSolver.solve(group100, 100);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithMemoized1000() {
+        return memoizedSolver.solve(group1000, 1000);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithTableFill1000() {
+        return tableFillSolver.solve(group1000, 1000);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithRollingTableFill10() {
+        return rollingSolver.solve(group10, 10);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithRollingTableFill100() {
+        return rollingSolver.solve(group100, 100);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithRollingTableFill1000() {
+        return rollingSolver.solve(group1000, 1000);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWithForkJoin100() {
+        forkJoinSolver.solveWithPartitions(group100, 100);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithForkJoin100() {
+        return forkJoinSolver.solve(group100, 100);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public PartitionPlans partitionPlans10() {
+        return dpSolver.partitionPlans(group10, 10);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public PartitionPlans partitionPlansCached10() {
+        return cachedSolver.partitionPlans(group10, 10);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithCP10() {
+        return cpSolver.solve(group10, 10);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countWithCPEnumeration10() {
+        return cpEnumerationSolver.solve(group10, 10);
+    }
+
+    // 最多由 6 个加数组成的划分，40 的 16928 个划分中只有 199 个满足
+    final private PartitionConstraints atMostSixParts = PartitionConstraints.none().withMaxParts(6);
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public int constrainedPartitionPlans40() {
+        return dpSolver.partitionPlans(group10, 40, atMostSixParts).planCount();
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long filteredPartitionPlans40() {
+        return dpSolver.partitionStream(group10, 40)
+                .filter(counts -> Arrays.stream(counts).sum() <= 6)
+                .count();
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long constrainedCount40() {
+        return dpSolver.solve(group10, 40, atMostSixParts);
+    }
 }
@@ -0,0 +1,86 @@
+package dev.carbonshow.algorithm.partition;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 整数划分的规模扫描：所有 {@link IntegerPartition} 实现，在不同的加数种类数量和被划分数下的计数和枚举性能。
+ * 加数集合为 [1, addendCount]，被划分数为 partitioned，两者的组合覆盖了从撮合的常见规模到数万个划分方案。
+ * <p>
+ * 同时输出吞吐量和延迟分布 (SampleTime 的 p50/p99 等分位数)。完整的组合数量较多，可以通过 jmh 的 -p 参数缩小范围，比如
+ * {@code ./gradlew :algorithm:jmh -PjmhIncludes=IntegerPartitionScalingBenchmark -PjmhResultTag=$(git rev-parse --short HEAD)}，
+ * 结果以 JSON 格式写入 build/results/jmh，不同提交之间的结果可以直接对比。
+ * <p>
+ * 注意：RECURSION 的计数复杂度和划分方案数量成正比，CP 实现的枚举每个方案都要经过一次 JNI 回调，规模最大时单次调用可能需要数秒。
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, warmups = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IntegerPartitionScalingBenchmark {
+
+    /**
+     * 参与对比的实现，除 DPIntegerPartition 的各种模式之外，还包括 CP-SAT 实现和缓存装饰器
+     */
+    public enum Implementation {
+        TABLE_FILL,
+        RECURSION,
+        MEMOIZED_RECURSION,
+        ROLLING_TABLE_FILL,
+        FORK_JOIN,
+        WAVEFRONT_TABLE_FILL,
+        // 没有附加约束，计数使用动态规划，枚举使用 CP-SAT
+        CP,
+        // 附加空的约束，计数也通过 CP-SAT 枚举
+        CP_ENUMERATION,
+        // 缓存装饰器，预热之后每次调用只是一次哈希查找
+        CACHED,
+    }
+
+    @Param
+    private Implementation implementation;
+
+    @Param({"5", "10", "20"})
+    private int addendCount;
+
+    @Param({"10", "20", "40"})
+    private long partitioned;
+
+    private long[] addends;
+
+    private IntegerPartition solver;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        addends = LongStream.rangeClosed(1, addendCount).toArray();
+        solver = switch (implementation) {
+            case TABLE_FILL -> new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.TABLE_FILL);
+            case RECURSION -> new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.RECURSION);
+            case MEMOIZED_RECURSION -> new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.MEMOIZED_RECURSION);
+            case ROLLING_TABLE_FILL -> new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.ROLLING_TABLE_FILL);
+            case FORK_JOIN -> new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.FORK_JOIN);
+            case WAVEFRONT_TABLE_FILL -> new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.WAVEFRONT_TABLE_FILL);
+            case CP -> new CPIntegerPartition();
+            case CP_ENUMERATION -> new CPIntegerPartition((model, counts) -> {
+            });
+            case CACHED -> new CachedIntegerPartition(new DPIntegerPartition());
+        };
+    }
+
+    @Benchmark
+    public long count() {
+        return solver.solve(addends, partitioned);
+    }
+
+    @Benchmark
+    public int enumerate() {
+        return solver.solveWithPartitions(addends, partitioned).size();
+    }
+
+    @Benchmark
+    public int partitionPlans() {
+        return solver.partitionPlans(addends, partitioned).planCount();
+    }
+}
@@ -20,6 +20,35 @@ public class MaxPartitionBenchmark {
 
     final private DefaultMaxPartitions solver = new DefaultMaxPartitions();
     final private IntegerProgrammingMaxPartitions ipSolver = new IntegerProgrammingMaxPartitions();
+    final private IntegerProgrammingMaxPartitions ipFullSolver = new IntegerProgrammingMaxPartitions(IntegerProgrammingMaxPartitions.Formulation.FULL);
+    final private DefaultMaxPartitions lpRoundingSolver = new DefaultMaxPartitions(DefaultMaxPartitions.ProgrammingMethod.LP_ROUNDING, 0.05);
+    final private DPMaxPartitions dpSolver = new DPMaxPartitions();
+    final private ColumnGenerationMaxPartitions columnGenerationSolver = new ColumnGenerationMaxPartitions();
+
+    // 划分方案数量较多的规模：1~10 凑 40，全部划分方案有 16928 个
+    final private Map<Long, Long> WIDE_ADDENDS = Map.of(1L, 50L, 2L, 40L, 3L, 40L, 4L, 30L, 5L, 30L,
+            6L, 20L, 7L, 20L, 8L, 10L, 9L, 10L, 10L, 10L);
+    final private long WIDE_PARTITIONED = 40;
+
+    // 加数稀缺时大部分划分方案不可行，剪枝后 16928 个方案只剩 3328 个
+    final private Map<Long, Long> SCARCE_ADDENDS = Map.of(1L, 5L, 2L, 4L, 3L, 4L, 4L, 3L, 5L, 3L,
+            6L, 2L, 7L, 2L, 8L, 1L, 9L, 1L, 10L, 1L);
+    final private long[] SCARCE_ADDEND_COUNTS = new long[]{5L, 4L, 4L, 3L, 3L, 2L, 2L, 1L, 1L, 1L};
+    final private PartitionPlans WIDE_PLANS = new DPIntegerPartition().partitionPlans(
+            new long[]{1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L}, WIDE_PARTITIONED);
+
+    final private CPSatMaxPartitions cpSatSolver = new CPSatMaxPartitions(CPSatMaxPartitions.Formulation.TWO_PHASE, 1, 1, 0);
+    final private CPSatMaxPartitions parallelCpSatSolver = new CPSatMaxPartitions(CPSatMaxPartitions.Formulation.TWO_PHASE,
+            Runtime.getRuntime().availableProcessors(), 1, 0);
+    final private CPSatMaxPartitions oneShotCpSatSolver = new CPSatMaxPartitions(CPSatMaxPartitions.Formulation.ONE_SHOT,
+            Runtime.getRuntime().availableProcessors(), 1, 0);
+
+    final private DefaultMaxPartitions unprunedSolver = new DefaultMaxPartitions(DefaultMaxPartitions.ProgrammingMethod.MIP, 0, false,
+            new MPSolverPool("SCIP", 1), null);
+
+    // 撮合中常见的规模：1~5 人的队伍凑出 5 人的对局，每种队伍数十个
+    final private Map<Long, Long> TEAMS = Map.of(1L, 30L, 2L, 20L, 3L, 12L, 4L, 8L, 5L, 6L);
+    final private long TEAM_SIZE = 5;
 
     @Fork(value = 1, warmups = 1)
     @Benchmark
@@ -29,6 +58,17 @@ public class MaxPartitionBenchmark {
         solver.solve(ADDENDS, PARTITIONED);
     }
 
+    /**
+     * 线性规划松弛取整，间隙不超过 5% 时不再调用 SCIP，对比 solveTwoPhase
+     */
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveTwoPhaseWithLpRounding() {
+        lpRoundingSolver.solveWithGap(ADDENDS, PARTITIONED);
+    }
+
     @Fork(value = 1, warmups = 1)
     @Benchmark
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
@@ -44,4 +84,136 @@ public class MaxPartitionBenchmark {
     public void solveWithIntegerProgramming() {
         ipSolver.solve(ADDENDS, PARTITIONED);
     }
+
+    /**
+     * 原始模型，划分数量上限为 150，且划分之间存在交换对称性；紧凑模型的上限为 23，对比 solveWithIntegerProgramming
+     */
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWithIntegerProgrammingFullFormulation() {
+        ipFullSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWithDynamicProgramming() {
+        dpSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveTeamsTwoPhase() {
+        solver.solve(TEAMS, TEAM_SIZE);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveTeamsWithDynamicProgramming() {
+        dpSolver.solve(TEAMS, TEAM_SIZE);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWithColumnGeneration() {
+        columnGenerationSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWideTwoPhase() {
+        solver.solve(WIDE_ADDENDS, WIDE_PARTITIONED);
+    }
+
+    /**
+     * 只生成有用的划分方案，对比 solveWideTwoPhase 枚举全部 16928 个划分方案
+     */
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWideWithColumnGeneration() {
+        columnGenerationSolver.solve(WIDE_ADDENDS, WIDE_PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveTwoPhaseWithoutPruning() {
+        unprunedSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveScarceTwoPhase() {
+        solver.solve(SCARCE_ADDENDS, WIDE_PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveScarceTwoPhaseWithoutPruning() {
+        unprunedSolver.solve(SCARCE_ADDENDS, WIDE_PARTITIONED);
+    }
+
+    /**
+     * 剪枝本身的开销，不包含整数规划
+     */
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public PartitionPlanPruner.Result pruneScarcePlans() {
+        return PartitionPlanPruner.prune(SCARCE_ADDEND_COUNTS, WIDE_PLANS);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWithCPSat() {
+        cpSatSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWithOneShotCPSat() {
+        oneShotCpSatSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    /**
+     * 单线程和多线程 CP-SAT 在大量划分方案上的对比，时间上限均为 1 秒
+     */
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWideWithCPSat() {
+        cpSatSolver.solve(WIDE_ADDENDS, WIDE_PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public void solveWideWithParallelCPSat() {
+        parallelCpSatSolver.solve(WIDE_ADDENDS, WIDE_PARTITIONED);
+    }
 }
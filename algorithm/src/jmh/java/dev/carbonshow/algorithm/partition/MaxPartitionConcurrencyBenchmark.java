@@ -0,0 +1,83 @@
+package dev.carbonshow.algorithm.partition;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程共享同一个求解器实例时的吞吐量。求解器池的大小由 poolSize 控制，
+ * 线程数超过池大小时多余的线程会阻塞等待，对比不同线程数下的吞吐量即可得到扩展性。
+ */
+@State(Scope.Benchmark)
+public class MaxPartitionConcurrencyBenchmark {
+
+    final private Map<Long, Long> ADDENDS = Map.of(1L, 100L, 2L, 40L, 5L, 10L);
+    final private long PARTITIONED = 10;
+
+    @Param({"1", "4", "8"})
+    private int poolSize;
+
+    private DefaultMaxPartitions solver;
+    private IntegerProgrammingMaxPartitions ipSolver;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        solver = new DefaultMaxPartitions(new MPSolverPool("SCIP", poolSize));
+        ipSolver = new IntegerProgrammingMaxPartitions(IntegerProgrammingMaxPartitions.Formulation.COMPACT, new MPSolverPool("SCIP", poolSize));
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public Object solveTwoPhase1Thread() {
+        return solver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public Object solveTwoPhase4Threads() {
+        return solver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @Threads(8)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public Object solveTwoPhase8Threads() {
+        return solver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public Object solveIntegerProgramming1Thread() {
+        return ipSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @Threads(4)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public Object solveIntegerProgramming4Threads() {
+        return ipSolver.solve(ADDENDS, PARTITIONED);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @Threads(8)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public Object solveIntegerProgramming8Threads() {
+        return ipSolver.solve(ADDENDS, PARTITIONED);
+    }
+}
@@ -0,0 +1,84 @@
+package dev.carbonshow.algorithm.partition;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最大化划分的规模扫描：所有 {@link MaxPartitions} 实现，在不同的加数种类数量、被划分数和加数数量下的性能。
+ * 加数集合为 [1, addendCount]，每个加数的数量在 [1, countScale] 内随机生成，随机种子由参数决定，因此同一组参数在不同的提交之间输入相同。
+ * <p>
+ * 同时输出吞吐量和延迟分布 (SampleTime 的 p50/p99 等分位数)。和 {@link IntegerPartitionScalingBenchmark} 一样，
+ * 通过 -PjmhIncludes 选择、-PjmhResultTag 标记结果文件，并可以通过 -p 缩小参数范围，
+ * 比如 {@code -p solver=DYNAMIC_PROGRAMMING,CP_SAT_TWO_PHASE}。
+ * <p>
+ * 注意：INTEGER_PROGRAMMING_FULL 的槽位数量和加数总数成正比，countScale 为 1000 时模型非常大；
+ * CP-SAT 实现只使用 1 个线程，并限制求解时间为 10 秒，和其他单线程实现对比。
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, warmups = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MaxPartitionsScalingBenchmark {
+
+    /**
+     * 参与对比的实现
+     */
+    public enum Solver {
+        TWO_PHASE_MIP,
+        TWO_PHASE_LP_ROUNDING,
+        INTEGER_PROGRAMMING_COMPACT,
+        INTEGER_PROGRAMMING_FULL,
+        DYNAMIC_PROGRAMMING,
+        COLUMN_GENERATION,
+        // 输入不变，每次调用只是热启动后重新求解
+        INCREMENTAL,
+        CP_SAT_TWO_PHASE,
+        CP_SAT_ONE_SHOT,
+    }
+
+    @Param
+    private Solver solver;
+
+    @Param({"3", "5", "10"})
+    private int addendCount;
+
+    @Param({"5", "10", "20"})
+    private long partitioned;
+
+    @Param({"10", "100", "1000"})
+    private long countScale;
+
+    private Map<Long, Long> addends;
+
+    private MaxPartitions maxPartitions;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var random = new Random(31L * addendCount + countScale);
+        addends = new HashMap<>();
+        for (long addend = 1; addend <= addendCount; addend++) {
+            addends.put(addend, 1 + random.nextLong(countScale));
+        }
+
+        maxPartitions = switch (solver) {
+            case TWO_PHASE_MIP -> new DefaultMaxPartitions();
+            case TWO_PHASE_LP_ROUNDING -> new DefaultMaxPartitions(DefaultMaxPartitions.ProgrammingMethod.LP_ROUNDING, 0.05);
+            case INTEGER_PROGRAMMING_COMPACT -> new IntegerProgrammingMaxPartitions(IntegerProgrammingMaxPartitions.Formulation.COMPACT);
+            case INTEGER_PROGRAMMING_FULL -> new IntegerProgrammingMaxPartitions(IntegerProgrammingMaxPartitions.Formulation.FULL);
+            case DYNAMIC_PROGRAMMING -> new DPMaxPartitions();
+            case COLUMN_GENERATION -> new ColumnGenerationMaxPartitions();
+            case INCREMENTAL -> new IncrementalMaxPartitions();
+            case CP_SAT_TWO_PHASE -> new CPSatMaxPartitions(CPSatMaxPartitions.Formulation.TWO_PHASE, 1, 10, 0);
+            case CP_SAT_ONE_SHOT -> new CPSatMaxPartitions(CPSatMaxPartitions.Formulation.ONE_SHOT, 1, 10, 0);
+        };
+    }
+
+    @Benchmark
+    public Object solve() {
+        return maxPartitions.solve(addends, partitioned);
+    }
+}
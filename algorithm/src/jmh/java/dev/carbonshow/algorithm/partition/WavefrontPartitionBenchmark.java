@@ -0,0 +1,49 @@
+package dev.carbonshow.algorithm.partition;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 很大的被划分数下，顺序填表和波前并行填表 (WAVEFRONT_TABLE_FILL) 的对比。划分数早已超出 long 的范围，
+ * 因此都对 {@link DPIntegerPartition#DEFAULT_MODULUS} 取模。加数集合为 [1, addendCount]。
+ * <p>
+ * 波前的步数为 2(M-1) + ⌈(N+1)/B⌉，每一步中并行的单元数量不超过 min(M, ⌈(N+1)/B⌉ / 2)，
+ * 因此 N 较小时同步开销占主导，N 达到 10^6 且 M 较大时才能接近线程数的加速比。
+ */
+@State(Scope.Benchmark)
+public class WavefrontPartitionBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private long partitioned;
+
+    @Param({"10", "100"})
+    private int addendCount;
+
+    private long[] addends;
+
+    final private DPIntegerPartition serialSolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.ROLLING_TABLE_FILL);
+    final private DPIntegerPartition wavefrontSolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.WAVEFRONT_TABLE_FILL);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        addends = LongStream.rangeClosed(1, addendCount).toArray();
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countModuloSerial() {
+        return serialSolver.solveModulo(addends, partitioned, DPIntegerPartition.DEFAULT_MODULUS);
+    }
+
+    @Fork(value = 1, warmups = 1)
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long countModuloWavefront() {
+        return wavefrontSolver.solveModulo(addends, partitioned, DPIntegerPartition.DEFAULT_MODULUS);
+    }
+}
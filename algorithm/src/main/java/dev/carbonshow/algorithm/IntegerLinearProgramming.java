@@ -1,6 +1,5 @@
 package dev.carbonshow.algorithm;
 
-import com.google.ortools.Loader;
 import com.google.ortools.linearsolver.MPConstraint;
 import com.google.ortools.linearsolver.MPObjective;
 import com.google.ortools.linearsolver.MPSolver;
@@ -8,7 +7,7 @@ import com.google.ortools.linearsolver.MPVariable;
 
 public class IntegerLinearProgramming {
   public static void main(String[] args) {
-    Loader.loadNativeLibraries();
+    NativeLibraries.ensureLoaded();
 
     // 基于 SCIP 实现的混合型整数规划优化器，同时支持线性和非线性规划
     MPSolver solver = MPSolver.createSolver("SCIP");
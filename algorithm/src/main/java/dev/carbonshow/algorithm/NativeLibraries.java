@@ -0,0 +1,90 @@
+package dev.carbonshow.algorithm;
+
+import com.google.ortools.Loader;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * OR-Tools native library 的统一加载入口。{@link Loader#loadNativeLibraries()} 需要从 jar 中解压并加载动态库，
+ * 冷启动的 JVM 上耗时可达数百毫秒，如果在求解器的构造或者首次请求中加载，这部分时间会直接计入请求延迟。
+ * <p>
+ * 所有求解器在第一次使用 native 对象之前调用 {@link #ensureLoaded()}：加载只会发生一次，之后的调用只是一次 volatile 读。
+ * 服务启动时可以通过 {@link #preloadAsync()} 在后台线程中提前加载，请求到来时加载通常已经完成；
+ * 如果尚未完成，{@link #ensureLoaded()} 会等待后台的加载结束，而不会重复加载。
+ * <p>
+ * 实际加载所花费的时间通过 {@link #loadTime()} 获取，可以作为启动指标上报。
+ */
+public final class NativeLibraries {
+
+    // 是否已经加载完成，加载完成之后的调用只需要读取该标记
+    private static volatile boolean loaded = false;
+
+    // 实际加载的耗时，单位为纳秒，只在加载完成后有效
+    private static volatile long loadNanos = 0;
+
+    // 后台预加载的结果，多次调用 preloadAsync 返回同一个对象
+    private static CompletableFuture<Duration> preload;
+
+    private NativeLibraries() {
+    }
+
+    /**
+     * 确保 native library 已经加载，可以被任意线程重复调用。首次调用会阻塞直到加载完成
+     *
+     * @throws UnsatisfiedLinkError 当前平台没有可用的 native library
+     */
+    public static void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (NativeLibraries.class) {
+            if (!loaded) {
+                var start = System.nanoTime();
+                Loader.loadNativeLibraries();
+                loadNanos = System.nanoTime() - start;
+                loaded = true;
+            }
+        }
+    }
+
+    /**
+     * 在后台守护线程中加载 native library，适合在服务启动时调用，让加载和其他初始化并行进行
+     *
+     * @return 加载完成时得到实际的加载耗时，加载失败时异常结束。重复调用返回同一个对象
+     */
+    public static synchronized CompletableFuture<Duration> preloadAsync() {
+        if (preload == null) {
+            preload = new CompletableFuture<>();
+            var thread = new Thread(() -> {
+                try {
+                    ensureLoaded();
+                    preload.complete(Duration.ofNanos(loadNanos));
+                } catch (Throwable e) {
+                    preload.completeExceptionally(e);
+                }
+            }, "ortools-native-preload");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return preload;
+    }
+
+    /**
+     * 是否已经加载完成
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 实际加载所花费的时间，不包括等待其他线程加载的时间
+     *
+     * @return 尚未加载完成时为空
+     */
+    public static Optional<Duration> loadTime() {
+        return loaded ? Optional.of(Duration.ofNanos(loadNanos)) : Optional.empty();
+    }
+}
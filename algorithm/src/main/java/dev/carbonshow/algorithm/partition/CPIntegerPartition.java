@@ -1,9 +1,13 @@
 package dev.carbonshow.algorithm.partition;
 
-import com.google.ortools.Loader;
 import com.google.ortools.sat.*;
+import dev.carbonshow.algorithm.NativeLibraries;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * 基于 CP-SAT 的解决方案，全称是 Constraint Programming Satisfiability。即不指定优化目标而是给出约束条件，来找到可行解。
@@ -15,8 +19,57 @@ import java.util.ArrayList;
  *     <b>注意:</b>
  *     <p>如果用于大规模问题，比如将 100 用[1,100]分拆，结果有数亿，这时使用 CP 方法，性能非常低，不建议使用</p>
  * </p>
+ * <p>
+ *     CP 的优势在于可以附加额外的约束条件，参见 {@link SideConstraints}。没有附加约束时，{@link #solve(long[], long)} 只是单纯的计数，
+ *     直接交给动态规划的滚动数组实现，不再通过 JNI 回调逐个枚举。同一个 (加数集合, 被划分数) 的模型在多次调用之间缓存复用。
+ * </p>
+ * <p>
+ *     惰性枚举和带 {@link PartitionConstraints} 的方法同样遵守附加约束：没有附加约束时交给动态规划实现，
+ *     否则把使用上限和加数数量上限写入一个新的模型，由 CP 枚举之后再执行自定义判断。
+ * </p>
  */
 public class CPIntegerPartition implements IntegerPartition {
+    /**
+     * 附加在划分模型上的额外约束，比如限制加数的总个数，或者某些加数必须同时出现
+     */
+    @FunctionalInterface
+    public interface SideConstraints {
+        /**
+         * 向模型中添加约束
+         *
+         * @param model  划分模型，已经包含 “加数之和等于被划分数” 的约束
+         * @param counts 每个加数的使用次数变量，与加数集合一一对应
+         */
+        void apply(CpModel model, IntVar[] counts);
+    }
+
+    /**
+     * 缓存的模型及其决策变量
+     *
+     * @param model     CP-SAT 模型
+     * @param variables 每个加数的使用次数变量
+     */
+    private record CachedModel(CpModel model, IntVar[] variables) {
+    }
+
+    /**
+     * 模型缓存的键，数组按内容比较
+     */
+    private record ModelKey(long[] addendSet, long partitioned) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ModelKey other && partitioned == other.partitioned && Arrays.equals(addendSet, other.addendSet);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(partitioned) + Arrays.hashCode(addendSet);
+        }
+    }
+
+    // 缓存的模型数量上限
+    private static final int MODEL_CACHE_CAPACITY = 16;
+
     // 定义划分结果记录器，在找到合适解后保存
     static class PartitionRecorder extends CpSolverSolutionCallback {
         // 保存加数数组
@@ -74,15 +127,82 @@ public class CPIntegerPartition implements IntegerPartition {
         }
     }
 
+    // 收集满足自定义判断的划分，以加数使用次数的形式保存
+    static class PartitionCollector extends CpSolverSolutionCallback {
+        // 保存加数数量变量数组
+        private final IntVar[] variableArray;
+
+        // 划分方案的自定义判断
+        private final PartitionConstraints constraints;
+
+        // 满足判断的划分方案，每个数组和加数集合一一对应
+        private final ArrayList<long[]> plans = new ArrayList<>();
+
+        public PartitionCollector(IntVar[] x, PartitionConstraints constraints) {
+            variableArray = x;
+            this.constraints = constraints;
+        }
+
+        // 每找到可用解，执行自定义判断后添加到本地
+        @Override
+        public void onSolutionCallback() {
+            var counts = new long[variableArray.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = value(variableArray[i]);
+            }
+            if (constraints.test(counts)) {
+                plans.add(counts);
+            }
+        }
+
+        // 返回所有可用解
+        public ArrayList<long[]> getPlans() {
+            return plans;
+        }
+    }
+
+    // 附加约束，为 null 表示只有加数之和的约束
+    private final SideConstraints sideConstraints;
+
+    // 没有附加约束时，计数交给动态规划
+    private final DPIntegerPartition countingSolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.ROLLING_TABLE_FILL);
+
+    // 按照访问顺序淘汰的模型缓存
+    private final LinkedHashMap<ModelKey, CachedModel> modelCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ModelKey, CachedModel> eldest) {
+            return size() > MODEL_CACHE_CAPACITY;
+        }
+    };
+
     CPIntegerPartition() {
-        Loader.loadNativeLibraries();
+        this(null);
     }
 
+    /**
+     * @param sideConstraints 附加在每个划分模型上的额外约束，为 null 时等价于无参构造
+     */
+    CPIntegerPartition(SideConstraints sideConstraints) {
+        this.sideConstraints = sideConstraints;
+    }
+
+    /**
+     * 获取划分方案的数量。没有附加约束时使用动态规划计数，否则通过 CP 枚举所有满足约束的划分
+     *
+     * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+     * @param partitioned 被划分的正整数
+     * @return 划分方案的数量
+     */
     @Override
     public long solve(long[] addendSet, long partitioned) {
+        if (sideConstraints == null) {
+            return countingSolver.solve(addendSet, partitioned);
+        }
+
+        // 回调对象同样依赖 native library，必须在创建之前加载
+        NativeLibraries.ensureLoaded();
         PartitionCounter cb = new PartitionCounter();
-        IntVar[] x = new IntVar[addendSet.length];
-        solveImpl(addendSet, partitioned, cb, x);
+        solveImpl(addendSet, partitioned, cb);
         return cb.getSolutionsCount();
     }
 
@@ -95,29 +215,122 @@ public class CPIntegerPartition implements IntegerPartition {
      */
     @Override
     public ArrayList<ArrayList<Long>> solveWithPartitions(long[] addendSet, long partitioned) {
-        IntVar[] x = new IntVar[addendSet.length];
-        PartitionRecorder cb = new PartitionRecorder(addendSet, x);
-        solveImpl(addendSet, partitioned, cb, x);
+        NativeLibraries.ensureLoaded();
+        var cachedModel = model(addendSet, partitioned);
+        PartitionRecorder cb = new PartitionRecorder(addendSet, cachedModel.variables());
+        solveImpl(cachedModel, cb);
         return cb.getSolutions();
     }
 
+    /**
+     * 惰性获取划分方案，存在附加约束时由 CP 枚举，参见 {@link #partitionIterator(long[], long, PartitionConstraints)}
+     */
+    @Override
+    public Iterator<long[]> partitionIterator(long[] addendSet, long partitioned) {
+        return partitionIterator(addendSet, partitioned, PartitionConstraints.none());
+    }
+
+    /**
+     * 获取满足附加约束的划分方案数量。没有附加约束时交给动态规划，否则通过 CP 枚举计数
+     */
+    @Override
+    public long solve(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+        if (sideConstraints == null) {
+            return countingSolver.solve(addendSet, partitioned, constraints);
+        }
+        return IntegerPartition.super.solve(addendSet, partitioned, constraints);
+    }
+
+    /**
+     * 获取同时满足附加约束和 {@link PartitionConstraints} 的划分方案。没有附加约束时交给动态规划实现，在枚举中剪枝；
+     * 否则使用上限和加数数量上限写入一个新的模型，不会修改缓存的模型，CP 枚举所有解之后再执行自定义判断。
+     * CP 无法惰性地逐个返回解，因此所有划分方案会先保存下来，迭代器返回的数组互不相同
+     *
+     * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+     * @param partitioned 被划分的正整数
+     * @param constraints 附加约束，使用上限和加数集合一一对应
+     * @return 划分方案的迭代器，顺序由 CP 的搜索决定
+     */
+    @Override
+    public Iterator<long[]> partitionIterator(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+        if (sideConstraints == null) {
+            return countingSolver.partitionIterator(addendSet, partitioned, constraints);
+        }
+
+        NativeLibraries.ensureLoaded();
+        var cpModel = new CpModel();
+        IntVar[] x = new IntVar[addendSet.length];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = cpModel.newIntVar(0, Math.min(partitioned / addendSet[i], constraints.maxMultiplicity(i)), "x" + i);
+        }
+
+        cpModel.addEquality(LinearExpr.weightedSum(x, addendSet), partitioned);
+        if (constraints.maxParts() < Long.MAX_VALUE) {
+            cpModel.addLessOrEqual(LinearExpr.sum(x), constraints.maxParts());
+        }
+        sideConstraints.apply(cpModel, x);
+
+        var cb = new PartitionCollector(x, constraints);
+        solveImpl(new CachedModel(cpModel, x), cb);
+        return cb.getPlans().iterator();
+    }
+
     /**
      * 获取所有满足约束条件的划分——即每个划分包含的加数之和等于被划分的整数
      *
      * @param addendSet   加数集合，内部不能有重复的元素，必须均为正整数。不同数量的不同加数之和应该等于 `partitioned`
      * @param partitioned 被划分的正整数
+     * @param cb          每找到一个划分时的回调
      */
-    private void solveImpl(long[] addendSet, long partitioned, CpSolverSolutionCallback cb, IntVar[] x) {
-        var cpModel = new CpModel();
+    private void solveImpl(long[] addendSet, long partitioned, CpSolverSolutionCallback cb) {
+        solveImpl(model(addendSet, partitioned), cb);
+    }
+
+    /**
+     * 在缓存的模型上枚举所有解。模型可能被多个线程共享，求解期间持有模型的锁
+     *
+     * @param cachedModel 缓存的模型
+     * @param cb          每找到一个划分时的回调
+     */
+    private void solveImpl(CachedModel cachedModel, CpSolverSolutionCallback cb) {
+        CpSolver solver = new CpSolver();
+        solver.getParameters().setEnumerateAllSolutions(true);
+        synchronized (cachedModel) {
+            solver.solve(cachedModel.model(), cb);
+        }
+    }
 
+    /**
+     * 获取缓存的模型，不存在时创建。模型只包含加数之和的约束，以及附加约束
+     *
+     * @param addendSet   加数集合
+     * @param partitioned 被划分的正整数
+     * @return 缓存的模型
+     */
+    private CachedModel model(long[] addendSet, long partitioned) {
+        var key = new ModelKey(addendSet.clone(), partitioned);
+        synchronized (modelCache) {
+            var cachedModel = modelCache.get(key);
+            if (cachedModel != null) {
+                return cachedModel;
+            }
+        }
+
+        var cpModel = new CpModel();
+        IntVar[] x = new IntVar[addendSet.length];
         for (int i = 0; i < x.length; i++) {
             x[i] = cpModel.newIntVar(0, partitioned / addendSet[i], "x" + i);
         }
 
         cpModel.addEquality(LinearExpr.weightedSum(x, addendSet), partitioned);
+        if (sideConstraints != null) {
+            sideConstraints.apply(cpModel, x);
+        }
 
-        CpSolver solver = new CpSolver();
-        solver.getParameters().setEnumerateAllSolutions(true);
-        solver.solve(cpModel, cb);
+        var cachedModel = new CachedModel(cpModel, x);
+        synchronized (modelCache) {
+            modelCache.put(key, cachedModel);
+        }
+        return cachedModel;
     }
 }
@@ -0,0 +1,291 @@
+package dev.carbonshow.algorithm.partition;
+
+import com.google.ortools.sat.*;
+import dev.carbonshow.algorithm.NativeLibraries;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基于 CP-SAT 的最大化划分，支持两种建模方式，参见 {@link Formulation}。
+ * <p>
+ * 与基于 SCIP 的实现相比：
+ * <ul>
+ *     <li>可以通过 numWorkers 使用多个线程并行搜索</li>
+ *     <li>可以设置求解时间上限和相对间隙，到达任意一个条件即停止</li>
+ *     <li>停止时只要找到了可行解 (FEASIBLE) 就返回当前最好的结果，而不是 null，因此延迟是有上界的。
+ *     通过 {@link #solveWithGap(Map, long)} 可以得到结果和最优解之间的间隙</li>
+ * </ul>
+ * 每次求解都会创建新的模型和求解器，实例可以在多个线程之间共享。
+ */
+public class CPSatMaxPartitions implements TwoPhaseMaxPartitions {
+
+    /**
+     * {@link #solve(Map, long)} 的建模方式
+     */
+    public enum Formulation {
+        /**
+         * 先枚举划分方案，再求解各方案的实施次数，和 {@link DefaultMaxPartitions} 相同
+         */
+        TWO_PHASE,
+        /**
+         * 不枚举划分方案，直接求解每个划分中各加数的使用次数，和 {@link IntegerProgrammingMaxPartitions} 的紧凑模型相同
+         */
+        ONE_SHOT,
+    }
+
+    // 建立基于动态规划的整数划分求解器，划分方案在多次调用之间缓存
+    final private CachedIntegerPartition partitionSolver = new CachedIntegerPartition(new DPIntegerPartition());
+
+    // 建模方式
+    final private Formulation formulation;
+
+    // 并行搜索的线程数量
+    final private int numWorkers;
+
+    // 求解时间上限，单位为秒
+    final private double maxTimeInSeconds;
+
+    // 相对间隙，(上界 - 目标值) / 目标值不超过该值时停止
+    final private double relativeGapLimit;
+
+    /**
+     * 使用两阶段建模，线程数和 CPU 核数相同，最多求解 10 秒，只接受最优解之前不主动停止
+     */
+    CPSatMaxPartitions() {
+        this(Formulation.TWO_PHASE, Runtime.getRuntime().availableProcessors(), 10, 0);
+    }
+
+    /**
+     * @param formulation      建模方式
+     * @param numWorkers       并行搜索的线程数量
+     * @param maxTimeInSeconds 求解时间上限，单位为秒
+     * @param relativeGapLimit 相对间隙，比如 0.05 表示和上界相差不超过 5% 即停止
+     */
+    CPSatMaxPartitions(Formulation formulation, int numWorkers, double maxTimeInSeconds, double relativeGapLimit) {
+        if (numWorkers <= 0) {
+            throw new IllegalArgumentException("numWorkers must be positive: " + numWorkers);
+        }
+        this.formulation = formulation;
+        this.numWorkers = numWorkers;
+        this.maxTimeInSeconds = maxTimeInSeconds;
+        this.relativeGapLimit = relativeGapLimit;
+    }
+
+    /**
+     * 获取最大划分的细节数据
+     *
+     * @param addends     加数集合，key 是加数，value 是加数的数量
+     * @param partitioned 对上面的加数集合进行划分，每个划分所含加数之和应该等于该值。
+     * @return 返回最大划分的细节数据，超时的情况下返回当前最好的可行解；不存在则返回 null
+     */
+    @Override
+    public ArrayList<PartitionData> solve(Map<Long, Long> addends, long partitioned) {
+        var result = solveWithGap(addends, partitioned);
+        return result == null ? null : result.partitions();
+    }
+
+    /**
+     * 获取最大划分的细节数据，同时返回划分实例总数的上界
+     *
+     * @param addends     加数集合，key 是加数，value 是加数的数量
+     * @param partitioned 对上面的加数集合进行划分，每个划分所含加数之和应该等于该值。
+     * @return 最大划分结果，超时的情况下返回当前最好的可行解；不存在则返回 null
+     */
+    public MaxPartitionsResult solveWithGap(Map<Long, Long> addends, long partitioned) {
+        var orderedAddends = new long[addends.size()];
+        var orderedAddendCounts = new long[addends.size()];
+        MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
+
+        if (formulation == Formulation.ONE_SHOT) {
+            return solveOneShot(orderedAddends, orderedAddendCounts, partitioned);
+        }
+
+        var partitionPlans = partitionSolver.partitionPlans(orderedAddends, partitioned);
+        var solver = newSolver();
+        var variables = new IntVar[partitionPlans.planCount()];
+        var status = solver.solve(buildPlanModel(orderedAddendCounts, partitionPlans, variables));
+        if (!hasSolution(status)) {
+            return null;
+        }
+
+        var planCounts = new long[variables.length];
+        long objective = 0;
+        for (int p = 0; p < variables.length; p++) {
+            planCounts[p] = solver.value(variables[p]);
+            objective += planCounts[p];
+        }
+        return new MaxPartitionsResult(partitionPlans.toPartitionData(planCounts), objective, bound(solver, objective), 0);
+    }
+
+    /**
+     * 在给定划分方案的基础上求解各方案的实施次数
+     *
+     * @param orderedAddendCounts 加数的数量，和 partitionPlans 中升序排列的加数一一对应
+     * @param partitioned         被划分数，划分后的每个实例中包含若干加数，这些加数的和必须等于该值
+     * @param partitionPlans      划分方案
+     * @return 每个划分方案的实施次数，超时的情况下返回当前最好的可行解；不存在则返回 null
+     */
+    @Override
+    public long[] solveWithPartitionPlan(long[] orderedAddendCounts, long partitioned, PartitionPlans partitionPlans) {
+        var solver = newSolver();
+        var variables = new IntVar[partitionPlans.planCount()];
+        var status = solver.solve(buildPlanModel(orderedAddendCounts, partitionPlans, variables));
+        if (!hasSolution(status)) {
+            return null;
+        }
+
+        var planCounts = new long[variables.length];
+        for (int p = 0; p < variables.length; p++) {
+            planCounts[p] = solver.value(variables[p]);
+        }
+        return planCounts;
+    }
+
+    /**
+     * 两阶段模型：决策变量是每个划分方案的实施次数，约束是每个加数的使用总数不超过其数量
+     *
+     * @param addendCounts   加数的数量
+     * @param partitionPlans 划分方案
+     * @param variables      输出的决策变量，和划分方案一一对应
+     * @return CP-SAT 模型
+     */
+    private static CpModel buildPlanModel(long[] addendCounts, PartitionPlans partitionPlans, IntVar[] variables) {
+        var model = new CpModel();
+        final int kinds = partitionPlans.addendKinds();
+
+        // 每个方案的实施次数不会超过任何一个被使用的加数所允许的次数
+        for (int p = 0; p < variables.length; p++) {
+            long upperBound = Long.MAX_VALUE;
+            for (int i = 0; i < kinds; i++) {
+                var multiplicity = partitionPlans.multiplicity(p, i);
+                if (multiplicity > 0) {
+                    upperBound = Math.min(upperBound, addendCounts[i] / multiplicity);
+                }
+            }
+            variables[p] = model.newIntVar(0, upperBound == Long.MAX_VALUE ? 0 : upperBound, "p" + p);
+        }
+
+        for (int i = 0; i < kinds; i++) {
+            var usage = LinearExpr.newBuilder();
+            for (int p = 0; p < variables.length; p++) {
+                var multiplicity = partitionPlans.multiplicity(p, i);
+                if (multiplicity > 0) {
+                    usage.addTerm(variables[p], multiplicity);
+                }
+            }
+            model.addLessOrEqual(usage, addendCounts[i]);
+        }
+
+        model.maximize(LinearExpr.sum(variables));
+        return model;
+    }
+
+    /**
+     * 一步求解：决策变量是每个划分槽位中各加数的使用次数，以及槽位是否被使用。
+     * 槽位数量为 min(∑c(i), ⌊∑a(i)c(i) / N⌋)，并要求编号靠前的槽位优先使用，消除对称性
+     *
+     * @param addends      升序排列的加数
+     * @param addendCounts 加数的数量
+     * @param partitioned  被划分数
+     * @return 最大划分结果，相同组成的划分会合并；不存在则返回 null
+     */
+    private MaxPartitionsResult solveOneShot(long[] addends, long[] addendCounts, long partitioned) {
+        final int kinds = addends.length;
+        long countSum = 0;
+        long valueSum = 0;
+        for (int i = 0; i < kinds; i++) {
+            countSum += addendCounts[i];
+            valueSum += addends[i] * addendCounts[i];
+        }
+        final int slots = (int) Math.min(countSum, valueSum / partitioned);
+
+        var model = new CpModel();
+        var addendVariables = new IntVar[kinds][slots];
+        var usedVariables = new BoolVar[slots];
+        for (int j = 0; j < slots; j++) {
+            usedVariables[j] = model.newBoolVar("u" + j);
+            for (int i = 0; i < kinds; i++) {
+                addendVariables[i][j] = model.newIntVar(0, Math.min(addendCounts[i], partitioned / addends[i]), "a" + i + "_" + j);
+            }
+
+            // 槽位被使用时加数之和等于被划分数，否则为 0
+            model.addEquality(LinearExpr.newBuilder()
+                    .add(LinearExpr.weightedSum(columnOf(addendVariables, j), addends))
+                    .addTerm(usedVariables[j], -partitioned), 0);
+            if (j > 0) {
+                model.addGreaterOrEqual(usedVariables[j - 1], usedVariables[j]);
+            }
+        }
+        for (int i = 0; i < kinds; i++) {
+            model.addLessOrEqual(LinearExpr.sum(addendVariables[i]), addendCounts[i]);
+        }
+        model.maximize(LinearExpr.sum(usedVariables));
+
+        var solver = newSolver();
+        if (!hasSolution(solver.solve(model))) {
+            return null;
+        }
+
+        // 合并组成相同的划分
+        var merged = new HashMap<Map<Long, Long>, Long>();
+        long objective = 0;
+        for (int j = 0; j < slots; j++) {
+            if (!solver.booleanValue(usedVariables[j])) {
+                continue;
+            }
+            var partition = new HashMap<Long, Long>();
+            for (int i = 0; i < kinds; i++) {
+                var count = solver.value(addendVariables[i][j]);
+                if (count > 0) {
+                    partition.put(addends[i], count);
+                }
+            }
+            merged.merge(partition, 1L, Long::sum);
+            objective++;
+        }
+
+        var partitions = new ArrayList<PartitionData>(merged.size());
+        merged.forEach((partition, count) -> partitions.add(new PartitionData(partition, count)));
+        return new MaxPartitionsResult(partitions, objective, bound(solver, objective), 0);
+    }
+
+    /**
+     * 取出第 j 个槽位中所有加数的决策变量
+     */
+    private static IntVar[] columnOf(IntVar[][] addendVariables, int slot) {
+        var column = new IntVar[addendVariables.length];
+        for (int i = 0; i < addendVariables.length; i++) {
+            column[i] = addendVariables[i][slot];
+        }
+        return column;
+    }
+
+    /**
+     * 按照配置创建求解器
+     */
+    private CpSolver newSolver() {
+        NativeLibraries.ensureLoaded();
+        var solver = new CpSolver();
+        solver.getParameters()
+                .setNumWorkers(numWorkers)
+                .setMaxTimeInSeconds(maxTimeInSeconds)
+                .setRelativeGapLimit(relativeGapLimit);
+        return solver;
+    }
+
+    /**
+     * 求得最优解，或者在停止时已经找到可行解
+     */
+    private static boolean hasSolution(CpSolverStatus status) {
+        return status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.FEASIBLE;
+    }
+
+    /**
+     * 目标值的上界，目标值一定是整数，因此对求解器给出的上界向下取整
+     */
+    private static long bound(CpSolver solver, long objective) {
+        return Math.max(objective, (long) Math.floor(solver.bestObjectiveBound() + 1e-6));
+    }
+}
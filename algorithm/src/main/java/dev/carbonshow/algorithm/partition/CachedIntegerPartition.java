@@ -0,0 +1,208 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 为任意 {@link IntegerPartition} 实现添加跨调用缓存的装饰器。撮合中的加数集合（队伍人数 1~5）和被划分数（每队人数）
+ * 在不同 tick 之间几乎不变，缓存之后同样的划分方案只需要枚举一次。
+ * <p>
+ * 缓存以 “结果类型 + 加数集合 + 被划分数” 作为键，按照最近最少使用 (LRU) 的策略淘汰，容量为缓存条目的数量。
+ * 所有操作都是线程安全的：查找和写入在锁内完成，但结果的计算在锁外进行，同一个键可能被并发地重复计算，不会阻塞其他键的查找。
+ * <p>
+ * {@link #solveWithPartitions(long[], long)} 返回的是缓存结果的拷贝，调用方可以自由修改；
+ * {@link #partitionPlans(long[], long)} 返回的 {@link PartitionPlans} 是只读的，直接共享。
+ * <p>
+ * 惰性枚举和带附加约束的方法不经过缓存，直接转发给被装饰的实现：迭代器和流只能消费一次，
+ * 附加约束中的自定义判断也无法作为缓存键。被装饰的实现可能重写了这些方法，比如 CP 实现附加的额外约束，
+ * 因此不能使用接口的默认实现，否则结果会和被装饰的实现不一致。
+ */
+public class CachedIntegerPartition implements IntegerPartition {
+
+  // 默认的缓存条目数量
+  static final int DEFAULT_CAPACITY = 64;
+
+  /**
+   * 缓存的结果类型，不同类型的结果互不影响
+   */
+  private enum ResultKind {
+    COUNT,
+    PARTITIONS,
+    PLANS,
+  }
+
+  /**
+   * 缓存键，数组按内容比较
+   *
+   * @param kind        结果类型
+   * @param addendSet   加数集合的拷贝
+   * @param partitioned 被划分数
+   */
+  private record PartitionKey(ResultKind kind, long[] addendSet, long partitioned) {
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof PartitionKey other && kind == other.kind && partitioned == other.partitioned
+        && Arrays.equals(addendSet, other.addendSet);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * kind.hashCode() + Long.hashCode(partitioned)) + Arrays.hashCode(addendSet);
+    }
+  }
+
+  // 被装饰的整数划分实现
+  final private IntegerPartition delegate;
+
+  // 按访问顺序排列的 LRU 缓存，超出容量时淘汰最久未访问的条目
+  final private LinkedHashMap<PartitionKey, Object> cache;
+
+  // 命中和未命中的次数
+  final private AtomicLong hits = new AtomicLong();
+  final private AtomicLong misses = new AtomicLong();
+
+  /**
+   * 使用默认容量
+   *
+   * @param delegate 被装饰的整数划分实现
+   */
+  public CachedIntegerPartition(IntegerPartition delegate) {
+    this(delegate, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param delegate 被装饰的整数划分实现
+   * @param capacity 缓存条目的最大数量
+   */
+  public CachedIntegerPartition(IntegerPartition delegate, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("cache capacity must be positive: " + capacity);
+    }
+    this.delegate = delegate;
+    cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<PartitionKey, Object> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  @Override
+  public long solve(long[] addendSet, long partitioned) {
+    var key = new PartitionKey(ResultKind.COUNT, addendSet.clone(), partitioned);
+    return cached(key, () -> delegate.solve(key.addendSet(), partitioned));
+  }
+
+  @Override
+  public ArrayList<ArrayList<Long>> solveWithPartitions(long[] addendSet, long partitioned) {
+    var key = new PartitionKey(ResultKind.PARTITIONS, addendSet.clone(), partitioned);
+    ArrayList<ArrayList<Long>> partitions = cached(key, () -> delegate.solveWithPartitions(key.addendSet(), partitioned));
+
+    // 缓存中的结果不能被调用方修改，返回深拷贝
+    var copy = new ArrayList<ArrayList<Long>>(partitions.size());
+    for (var partition : partitions) {
+      copy.add(new ArrayList<>(partition));
+    }
+    return copy;
+  }
+
+  @Override
+  public PartitionPlans partitionPlans(long[] addendSet, long partitioned) {
+    var key = new PartitionKey(ResultKind.PLANS, addendSet.clone(), partitioned);
+    return cached(key, () -> delegate.partitionPlans(key.addendSet(), partitioned));
+  }
+
+  @Override
+  public Iterator<long[]> partitionIterator(long[] addendSet, long partitioned) {
+    return delegate.partitionIterator(addendSet, partitioned);
+  }
+
+  @Override
+  public Stream<long[]> partitionStream(long[] addendSet, long partitioned) {
+    return delegate.partitionStream(addendSet, partitioned);
+  }
+
+  @Override
+  public long solve(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    return delegate.solve(addendSet, partitioned, constraints);
+  }
+
+  @Override
+  public ArrayList<ArrayList<Long>> solveWithPartitions(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    return delegate.solveWithPartitions(addendSet, partitioned, constraints);
+  }
+
+  @Override
+  public Iterator<long[]> partitionIterator(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    return delegate.partitionIterator(addendSet, partitioned, constraints);
+  }
+
+  @Override
+  public PartitionPlans partitionPlans(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    return delegate.partitionPlans(addendSet, partitioned, constraints);
+  }
+
+  /**
+   * 缓存命中的次数
+   */
+  public long hitCount() {
+    return hits.get();
+  }
+
+  /**
+   * 缓存未命中的次数，即实际调用被装饰实现的次数
+   */
+  public long missCount() {
+    return misses.get();
+  }
+
+  /**
+   * 当前缓存条目的数量
+   */
+  public int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  /**
+   * 清空缓存，命中和未命中的次数保持不变
+   */
+  public void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * 查找缓存，未命中时在锁外计算并写入
+   *
+   * @param key      缓存键
+   * @param compute  未命中时的计算逻辑
+   * @param <T>      结果类型，由缓存键的结果类型决定
+   * @return 缓存或者新计算的结果
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T cached(PartitionKey key, Supplier<T> compute) {
+    synchronized (cache) {
+      var value = cache.get(key);
+      if (value != null) {
+        hits.incrementAndGet();
+        return (T) value;
+      }
+    }
+
+    misses.incrementAndGet();
+    var value = compute.get();
+    synchronized (cache) {
+      cache.put(key, value);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,244 @@
+package dev.carbonshow.algorithm.partition;
+
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 基于列生成 (column generation) 的两阶段最大化划分，不再枚举所有划分方案：
+ * <ol>
+ *   <li>主问题是划分方案实施次数的线性规划松弛，初始只包含由单一加数构成的划分方案</li>
+ *   <li>求解主问题得到每个加数约束的对偶值 y(i)，可以理解为一个加数的 “价格”</li>
+ *   <li>定价子问题：在 ∑a(i)m(i) = N，m(i) ≤ min(c(i), ⌊N / a(i)⌋) 的约束下，通过有界背包的动态规划找到 ∑y(i)m(i) 最小的划分方案，
+ *       如果其检验数 1 - ∑y(i)m(i) 大于 0，说明加入该方案可以改进主问题，加入后回到第 2 步；否则主问题已经达到最优</li>
+ *   <li>在生成的划分方案上求解整数规划，得到最终的实施次数</li>
+ * </ol>
+ * 划分方案的数量只和真正有用的方案有关，不会随被划分数组合爆炸。
+ * 最后一步只在生成的方案上求整数解，属于 price-and-branch 的启发式方法，极少数情况下可能略差于枚举全部方案的最优解。
+ */
+public class ColumnGenerationMaxPartitions implements TwoPhaseMaxPartitions {
+
+  // 检验数大于该值时才认为划分方案可以改进主问题，避免浮点误差导致无限循环
+  private static final double REDUCED_COST_TOLERANCE = 1e-9;
+
+  // 列生成的最大迭代次数
+  private static final int MAX_ITERATIONS = 1000;
+
+  // 线性规划求解器池，用于求解主问题
+  final private MPSolverPool relaxationSolverPool;
+
+  // 在生成的划分方案上求解整数规划
+  final private TwoPhaseMaxPartitions integerSolver;
+
+  /**
+   * 构造入口，主问题使用 GLOP，最终的整数规划使用 {@link DefaultMaxPartitions}
+   */
+  ColumnGenerationMaxPartitions() {
+    this(new MPSolverPool("GLOP", 1), new DefaultMaxPartitions());
+  }
+
+  /**
+   * @param relaxationSolverPool 线性规划求解器池，比如 GLOP，需要能够提供对偶值
+   * @param integerSolver        在生成的划分方案上求解实施次数的求解器
+   */
+  ColumnGenerationMaxPartitions(MPSolverPool relaxationSolverPool, TwoPhaseMaxPartitions integerSolver) {
+    this.relaxationSolverPool = relaxationSolverPool;
+    this.integerSolver = integerSolver;
+  }
+
+  /**
+   * 获取最大划分的细节数据，结果只包含列生成过程中产生的划分方案
+   *
+   * @param addends     加数集合，key 是加数，value 是加数的数量
+   * @param partitioned 对上面的加数集合进行划分，每个划分所含加数之和应该等于该值。
+   * @return 返回最大划分的细节数据，包含每个划分的组成，以及该划分实例化之后的数据，不存在则返回 null
+   */
+  @Override
+  public ArrayList<PartitionData> solve(Map<Long, Long> addends, long partitioned) {
+    var orderedAddends = new long[addends.size()];
+    var orderedAddendCounts = new long[addends.size()];
+    MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
+
+    var partitionPlans = relaxationSolverPool.execute(solver -> generatePlans(solver, orderedAddends, orderedAddendCounts, partitioned));
+    if (partitionPlans == null) {
+      return null;
+    }
+    if (partitionPlans.planCount() == 0) {
+      return new ArrayList<>();
+    }
+
+    var planCounts = integerSolver.solveWithPartitionPlan(orderedAddendCounts, partitioned, partitionPlans);
+    return planCounts == null ? null : partitionPlans.toPartitionData(planCounts);
+  }
+
+  /**
+   * 划分方案已经给定，不需要列生成，直接求解整数规划
+   *
+   * @param orderedAddendCounts 加数的数量，和 partitionPlans 中升序排列的加数一一对应
+   * @param partitioned         被划分数，划分后的每个实例中包含若干加数，这些加数的和必须等于该值
+   * @param partitionPlans      划分方案
+   * @return 每个划分方案的实施次数，和 partitionPlans 中的方案一一对应；不存在则返回 null
+   */
+  @Override
+  public long[] solveWithPartitionPlan(long[] orderedAddendCounts, long partitioned, PartitionPlans partitionPlans) {
+    return integerSolver.solveWithPartitionPlan(orderedAddendCounts, partitioned, partitionPlans);
+  }
+
+  /**
+   * 列生成的主循环，主问题中的变量随着新方案的加入逐个增加，约束条件保持不变
+   *
+   * @param relaxationSolver 从求解器池中借用的线性规划求解器，已经被清理过
+   * @param addends          升序排列的加数
+   * @param addendCounts     加数的数量
+   * @param partitioned      被划分数
+   * @return 生成的划分方案，主问题求解失败则返回 null
+   */
+  private static PartitionPlans generatePlans(MPSolver relaxationSolver, long[] addends, long[] addendCounts, long partitioned) {
+    final int kinds = addends.length;
+    var plans = new PartitionPlans(addends);
+
+    // 单个划分方案中每个加数最多的使用次数
+    var upperBounds = new long[kinds];
+    for (int i = 0; i < kinds; i++) {
+      upperBounds[i] = Math.min(addendCounts[i], partitioned / addends[i]);
+    }
+
+    // 主问题的约束条件，每个加数在所有方案中出现的总次数不得超过其总数
+    var constraints = new MPConstraint[kinds];
+    for (int i = 0; i < kinds; i++) {
+      constraints[i] = relaxationSolver.makeConstraint(0, addendCounts[i], "c" + i);
+    }
+    MPObjective objective = relaxationSolver.objective();
+    objective.setMaximization();
+
+    // 初始方案：只由单一加数构成的划分方案
+    var column = new long[kinds];
+    for (int i = 0; i < kinds; i++) {
+      if (partitioned % addends[i] == 0 && partitioned / addends[i] <= upperBounds[i]) {
+        Arrays.fill(column, 0L);
+        column[i] = partitioned / addends[i];
+        addColumn(relaxationSolver, constraints, objective, plans, column);
+      }
+    }
+
+    var duals = new double[kinds];
+    for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+      if (plans.planCount() > 0) {
+        if (relaxationSolver.solve() != MPSolver.ResultStatus.OPTIMAL) {
+          return null;
+        }
+        for (int i = 0; i < kinds; i++) {
+          duals[i] = constraints[i].dualValue();
+        }
+      }
+
+      // 定价：找到检验数最大的划分方案，不能改进主问题或者已经存在时结束
+      var priced = priceColumn(addends, upperBounds, partitioned, duals);
+      if (priced == null || reducedCost(priced, duals) <= REDUCED_COST_TOLERANCE || contains(plans, priced)) {
+        break;
+      }
+      addColumn(relaxationSolver, constraints, objective, plans, priced);
+    }
+    return plans;
+  }
+
+  /**
+   * 将划分方案作为新的变量加入主问题
+   */
+  private static void addColumn(MPSolver relaxationSolver, MPConstraint[] constraints, MPObjective objective, PartitionPlans plans, long[] column) {
+    MPVariable variable = relaxationSolver.makeNumVar(0, MPSolver.infinity(), "p" + plans.planCount());
+    for (int i = 0; i < column.length; i++) {
+      if (column[i] > 0) {
+        constraints[i].setCoefficient(variable, column[i]);
+      }
+    }
+    objective.setCoefficient(variable, 1);
+    plans.add(column);
+  }
+
+  /**
+   * 定价子问题：有界背包的动态规划。cost[i][v] 表示只使用前 i 种加数恰好凑出 v 时，∑y(j)m(j) 的最小值，
+   * 转移时枚举第 i 种加数的使用次数 k ≤ upperBounds[i]，并记录 k 用于还原方案
+   *
+   * @param addends     升序排列的加数
+   * @param upperBounds 单个划分方案中每个加数最多的使用次数
+   * @param partitioned 被划分数
+   * @param duals       每个加数约束的对偶值
+   * @return ∑y(i)m(i) 最小的划分方案，不存在任何划分方案则返回 null
+   */
+  static long[] priceColumn(long[] addends, long[] upperBounds, long partitioned, double[] duals) {
+    final int kinds = addends.length;
+    final int target = (int) partitioned;
+
+    var cost = new double[target + 1];
+    Arrays.fill(cost, Double.POSITIVE_INFINITY);
+    cost[0] = 0;
+    var choice = new int[kinds][target + 1];
+
+    var next = new double[target + 1];
+    for (int i = 0; i < kinds; i++) {
+      final int addend = (int) addends[i];
+      for (int v = 0; v <= target; v++) {
+        var best = cost[v];
+        int bestCount = 0;
+        for (int k = 1; k <= upperBounds[i] && k * addend <= v; k++) {
+          var candidate = cost[v - k * addend] + k * duals[i];
+          if (candidate < best) {
+            best = candidate;
+            bestCount = k;
+          }
+        }
+        next[v] = best;
+        choice[i][v] = bestCount;
+      }
+      var swap = cost;
+      cost = next;
+      next = swap;
+    }
+
+    if (cost[target] == Double.POSITIVE_INFINITY) {
+      return null;
+    }
+
+    // 从最后一种加数开始，按照记录的使用次数还原方案
+    var column = new long[kinds];
+    int value = target;
+    for (int i = kinds - 1; i >= 0; i--) {
+      column[i] = choice[i][value];
+      value -= (int) (column[i] * addends[i]);
+    }
+    return column;
+  }
+
+  /**
+   * 划分方案的检验数，即 1 - ∑y(i)m(i)
+   */
+  private static double reducedCost(long[] column, double[] duals) {
+    double cost = 0;
+    for (int i = 0; i < column.length; i++) {
+      cost += column[i] * duals[i];
+    }
+    return 1 - cost;
+  }
+
+  /**
+   * 判断划分方案是否已经在主问题中，防止对偶值的数值误差导致重复加入
+   */
+  private static boolean contains(PartitionPlans plans, long[] column) {
+    for (int p = 0; p < plans.planCount(); p++) {
+      boolean same = true;
+      for (int i = 0; i < column.length && same; i++) {
+        same = plans.multiplicity(p, i) == column[i];
+      }
+      if (same) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -1,6 +1,10 @@
 package dev.carbonshow.algorithm.partition;
 
+import java.io.Serial;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * 使用动态规划方法解决整数划分问题
@@ -14,12 +18,46 @@ public class DPIntegerPartition implements IntegerPartition {
     TABLE_FILL,
 
     // 自顶向下
-    RECURSION
+    RECURSION,
+
+    // 自顶向下，并使用 long[] 缓存已求解的子问题 (addendSize, partitionedValue)，避免重复展开
+    MEMOIZED_RECURSION,
+
+    // bottom-up 自底向上，但只保留一行状态，并复用线程本地的缓冲区，重复调用不再分配内存
+    ROLLING_TABLE_FILL,
+
+    // 在 ForkJoinPool 上并行枚举：按照最大加数的使用次数展开子问题，直到子问题的划分数量低于阈值，再交给工作线程顺序枚举。
+    // 计数直接使用滚动数组，不需要枚举
+    FORK_JOIN,
+
+    // bottom-up 自底向上，将 j 维度切分为若干块，按照波前 (wavefront) 顺序在 ForkJoinPool 上并行填表，适用于很大的被划分数
+    WAVEFRONT_TABLE_FILL
   }
 
+  // 计数取模时默认使用的质数
+  public static final long DEFAULT_MODULUS = 1_000_000_007L;
+
+  // 并行枚举时叶子任务的最小划分数量，更小的子问题调度开销超过枚举本身
+  private static final long MIN_FORK_JOIN_LEAF_SIZE = 1 << 10;
+
+  // 波前并行填表时默认的块大小，实际块大小不小于最大的加数
+  static final int DEFAULT_WAVEFRONT_BLOCK_SIZE = 1 << 14;
+
+  // 缓存中表示子问题尚未求解的标记。划分数超出 long 范围后会溢出为负数，所以不能简单使用 -1
+  private static final long UNSOLVED = Long.MIN_VALUE;
+
+  // 滚动数组使用的线程本地缓冲区，容量不足时才会扩容，因此同一线程的重复调用不产生新的内存分配
+  private static final ThreadLocal<long[]> ROW_BUFFER = ThreadLocal.withInitial(() -> new long[0]);
+
   // 模式实现方式为自顶向下
   final private DPImplementMethod SOLVE_METHOD;
 
+  // 并行实现所使用的线程池，只在 FORK_JOIN 模式下使用
+  final private ForkJoinPool forkJoinPool;
+
+  // 波前并行填表时的块大小，只在 WAVEFRONT_TABLE_FILL 模式下使用
+  final private int wavefrontBlockSize;
+
   /**
    * 默认是递归实现
    */
@@ -28,12 +66,38 @@ public class DPIntegerPartition implements IntegerPartition {
   }
 
   /**
-   * 可以指定实现方法，默认是递归
+   * 可以指定实现方法，默认是递归。并行实现使用公共的 ForkJoinPool
    *
    * @param implementMethod 动态规划的实现方法
    */
   public DPIntegerPartition(DPImplementMethod implementMethod) {
+    this(implementMethod, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * 指定实现方法，以及并行实现所使用的线程池
+   *
+   * @param implementMethod 动态规划的实现方法
+   * @param forkJoinPool    并行实现所使用的线程池
+   */
+  public DPIntegerPartition(DPImplementMethod implementMethod, ForkJoinPool forkJoinPool) {
+    this(implementMethod, forkJoinPool, DEFAULT_WAVEFRONT_BLOCK_SIZE);
+  }
+
+  /**
+   * 指定实现方法、并行实现所使用的线程池，以及波前并行填表的块大小
+   *
+   * @param implementMethod    动态规划的实现方法
+   * @param forkJoinPool       并行实现所使用的线程池
+   * @param wavefrontBlockSize 波前并行填表时 j 维度的块大小，块越小并行度越高，但每一步的调度开销越大
+   */
+  public DPIntegerPartition(DPImplementMethod implementMethod, ForkJoinPool forkJoinPool, int wavefrontBlockSize) {
+    if (wavefrontBlockSize <= 0) {
+      throw new IllegalArgumentException("wavefront block size must be positive: " + wavefrontBlockSize);
+    }
     SOLVE_METHOD = implementMethod;
+    this.forkJoinPool = forkJoinPool;
+    this.wavefrontBlockSize = wavefrontBlockSize;
   }
 
   /**
@@ -53,23 +117,64 @@ public class DPIntegerPartition implements IntegerPartition {
    */
   @Override
   public long solve(long[] addendSet, long partitioned) {
-    return SOLVE_METHOD == DPImplementMethod.RECURSION ? recursiveSolve(addendSet, addendSet.length, partitioned) : tableFillSolve(addendSet, partitioned);
+    return switch (SOLVE_METHOD) {
+      case RECURSION -> recursiveSolve(addendSet, addendSet.length, partitioned);
+      case MEMOIZED_RECURSION -> memoizedSolve(addendSet, partitioned);
+      case TABLE_FILL -> tableFillSolve(addendSet, partitioned);
+      // 计数的复杂度只有 O(M*N)，并行拆分的收益远小于调度开销
+      case ROLLING_TABLE_FILL, FORK_JOIN -> rollingTableFillSolve(addendSet, partitioned);
+      case WAVEFRONT_TABLE_FILL -> wavefrontSolve(addendSet, partitioned, 0);
+    };
   }
 
   /**
-   * 递归解决方案，包含了可用的具体划分方案，以递归路径的形式表达
+   * 获取划分方案数量对 modulus 取模的结果。划分数增长极快，很大的被划分数即使使用 long 也会溢出，此时只能计算取模后的值。
+   * WAVEFRONT_TABLE_FILL 模式下并行填表，其他模式均使用滚动数组顺序填表
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 等待被拆分的正整数
+   * @param modulus     模数，通常是质数，比如 {@link #DEFAULT_MODULUS}。必须为正数且小于 2^62，保证两个余数相加不会溢出
+   * @return 划分方案数量对 modulus 取模的结果
+   */
+  public long solveModulo(long[] addendSet, long partitioned, long modulus) {
+    if (modulus <= 0 || modulus >= 1L << 62) {
+      throw new IllegalArgumentException("modulus must be in (0, 2^62): " + modulus);
+    }
+    if (SOLVE_METHOD == DPImplementMethod.WAVEFRONT_TABLE_FILL) {
+      return wavefrontSolve(addendSet, partitioned, modulus);
+    }
+
+    // 加数集合为空时没有任何划分方案，和递归实现保持一致
+    if (addendSet.length == 0) {
+      return 0L;
+    }
+    var dp = new long[(int) partitioned + 1];
+    dp[0] = 1 % modulus;
+    for (long addend : addendSet) {
+      fillRow(dp, addend, 0, dp.length, modulus);
+    }
+    return dp[dp.length - 1];
+  }
+
+  /**
+   * 获取所有划分方案。通过 {@link PartitionIterator} 以显式栈的方式遍历递归树，只有在找到可用划分时才创建加数列表，
+   * 不再在递归的每个节点上拷贝路径。
    *
    * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数。不同数量的不同加数之和应该等于 `partitionedValue`
    * @param partitioned 等待被拆分的正整数
-   * @return 返回可用的所有划分方案
+   * @return 返回可用的所有划分方案，每个划分方案中的加数按降序排列
    */
   @Override
   public ArrayList<ArrayList<Long>> solveWithPartitions(long[] addendSet, long partitioned) {
-    var paths = new ArrayList<ArrayList<Long>>();
-    var path = new ArrayList<Long>();
-
-    recursiveSolveWithPartitionsImpl(addendSet, addendSet.length, partitioned, paths, path);
+    if (SOLVE_METHOD == DPImplementMethod.FORK_JOIN) {
+      return forkJoinEnumerate(addendSet, partitioned);
+    }
 
+    var paths = new ArrayList<ArrayList<Long>>();
+    var iterator = partitionIterator(addendSet, partitioned);
+    while (iterator.hasNext()) {
+      paths.add(PartitionIterator.toAddendList(addendSet, iterator.next()));
+    }
     return paths;
   }
 
@@ -81,6 +186,18 @@ public class DPIntegerPartition implements IntegerPartition {
    * @return 返回总的划分数量
    */
   private long tableFillSolve(long[] addendSet, long partitioned) {
+    return countingTable(addendSet, partitioned)[addendSet.length][(int)partitioned];
+  }
+
+  /**
+   * 构造完整的 dp 计数表，dp[i][j] 表示只使用前 i 个加数划分 j 的方案数量。除了计数之外，
+   * {@link PartitionRanker} 也依赖这张表在不枚举的情况下定位第 k 个划分方案
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 等待被拆分的正整数
+   * @return 大小为 (addendSet.length + 1) * (partitioned + 1) 的计数表
+   */
+  static long[][] countingTable(long[] addendSet, long partitioned) {
     // 定义 dp 状态空间，默认全部为 0
     long[][] dp = new long[addendSet.length + 1][(int)partitioned + 1];
 
@@ -98,7 +215,279 @@ public class DPIntegerPartition implements IntegerPartition {
       }
     }
 
-    return dp[addendSet.length][(int)partitioned];
+    return dp;
+  }
+
+  /**
+   * 获取满足附加约束的划分方案数量。没有自定义判断时直接通过动态规划计数，不需要枚举；否则逐个枚举并计数
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @param constraints 附加约束，使用上限和加数集合一一对应
+   * @return 满足约束的划分方案数量
+   */
+  @Override
+  public long solve(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    if (constraints.hasPredicate()) {
+      return IntegerPartition.super.solve(addendSet, partitioned, constraints);
+    }
+    return countWithConstraints(addendSet, partitioned, constraints);
+  }
+
+  /**
+   * 在附加约束下计数，不需要枚举。加数数量的上限不会起作用时，即不小于 N / a(0)，
+   * 只需要在滚动数组上限制每个加数的使用次数，参见 {@link #countWithMultiplicities(long[], long, PartitionConstraints)}；
+   * 否则状态增加一维 “已使用的加数数量”：ways[k][v] 表示使用 k 个加数凑出 v 的方案数量。
+   * 加入第 i 个加数时，最多使用 c(i) 次：
+   * <pre>
+   * next[k][v] = ∑ ways[k-t][v-t*a(i)], t ∈ [0, c(i)]
+   *            = ways[k][v] + next[k-1][v-a(i)] - ways[k-1-c(i)][v-(c(i)+1)*a(i)]
+   * </pre>
+   * 第二行利用对角线上的前缀和，每个状态 O(1) 完成转移，总复杂度 O(M*K*N)，空间 O(K*N)，K 是加数数量的上限。
+   * 约束中的自定义判断无法在计数中体现，会被忽略，由调用方决定是否改为枚举。
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 等待被拆分的正整数
+   * @param constraints 附加约束，只使用加数数量上限和每个加数的使用上限
+   * @return 满足约束的划分数量
+   */
+  private static long countWithConstraints(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    // 加数集合为空时没有任何划分方案，和递归实现保持一致
+    if (addendSet.length == 0) {
+      return 0L;
+    }
+
+    // 加数数量不会超过 N / a(0)，上限不小于该值时不需要记录加数数量
+    if (constraints.maxParts() >= partitioned / addendSet[0]) {
+      return countWithMultiplicities(addendSet, partitioned, constraints);
+    }
+
+    var n = (int) partitioned;
+    var maxParts = (int) constraints.maxParts();
+    var ways = new long[maxParts + 1][n + 1];
+    var next = new long[maxParts + 1][n + 1];
+    ways[0][0] = 1;
+
+    for (int i = 0; i < addendSet.length; i++) {
+      var addend = (int) Math.min(addendSet[i], n + 1L);
+      var cap = (int) Math.min(constraints.maxMultiplicity(i), partitioned / addendSet[i]);
+      var excludedParts = cap + 1;
+      var excludedValue = (long) excludedParts * addend;
+      for (int k = 0; k <= maxParts; k++) {
+        for (int v = 0; v <= n; v++) {
+          var count = ways[k][v];
+          if (k >= 1 && v >= addend) {
+            count += next[k - 1][v - addend];
+          }
+          if (k >= excludedParts && v >= excludedValue) {
+            count -= ways[k - excludedParts][(int) (v - excludedValue)];
+          }
+          next[k][v] = count;
+        }
+      }
+      var swap = ways;
+      ways = next;
+      next = swap;
+    }
+
+    long total = 0;
+    for (int k = 0; k <= maxParts; k++) {
+      total += ways[k][n];
+    }
+    return total;
+  }
+
+  /**
+   * 只限制每个加数使用次数时的计数，和滚动数组实现相同只保留一维状态，空间 O(N)：
+   * <pre>
+   * next[v] = ∑ ways[v-t*a(i)], t ∈ [0, c(i)]
+   *         = ways[v] + next[v-a(i)] - ways[v-(c(i)+1)*a(i)]
+   * </pre>
+   *
+   * @param addendSet   加数集合，不能为空，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 等待被拆分的正整数
+   * @param constraints 附加约束，只使用每个加数的使用上限
+   * @return 满足约束的划分数量
+   */
+  private static long countWithMultiplicities(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    var n = (int) partitioned;
+    var ways = new long[n + 1];
+    var next = new long[n + 1];
+    ways[0] = 1;
+
+    for (int i = 0; i < addendSet.length; i++) {
+      var addend = (int) Math.min(addendSet[i], n + 1L);
+      var cap = Math.min(constraints.maxMultiplicity(i), partitioned / addendSet[i]);
+      var excludedValue = (cap + 1) * addend;
+      for (int v = 0; v <= n; v++) {
+        var count = ways[v];
+        if (v >= addend) {
+          count += next[v - addend];
+        }
+        if (v >= excludedValue) {
+          count -= ways[(int) (v - excludedValue)];
+        }
+        next[v] = count;
+      }
+      var swap = ways;
+      ways = next;
+      next = swap;
+    }
+    return ways[n];
+  }
+
+  /**
+   * 自底向上的滚动数组实现。状态转移方程中 dp[i][j] 只依赖本行的 dp[i][j-a(i)] 和上一行的 dp[i-1][j]，
+   * 因此按 j 升序原地更新同一行即可：更新前 dp[j] 保存的是上一行的值，dp[j-a(i)] 已经是本行的值。
+   * <p>
+   * 行缓冲区来自 {@link #ROW_BUFFER}，空间复杂度从 O(M*N) 降为 O(N)，且同一线程重复调用时无需分配内存。
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数。不同数量的不同加数之和应该等于 `partitionedValue`
+   * @param partitioned 等待被拆分的正整数
+   * @return 返回总的划分数量
+   */
+  private long rollingTableFillSolve(long[] addendSet, long partitioned) {
+    // 加数集合为空时没有任何划分方案，和递归实现保持一致
+    if (addendSet.length == 0) {
+      return 0L;
+    }
+
+    var width = (int) partitioned + 1;
+    var dp = ROW_BUFFER.get();
+    if (dp.length < width) {
+      dp = new long[width];
+      ROW_BUFFER.set(dp);
+    }
+
+    // 只使用缓冲区的前 width 个元素，初始状态为第 0 行，即只有 dp[0] 为 1
+    Arrays.fill(dp, 0, width, 0L);
+    dp[0] = 1;
+
+    for (long addend : addendSet) {
+      for (int j = (int) addend; j < width; j++) {
+        dp[j] += dp[j - (int) addend];
+      }
+    }
+
+    return dp[width - 1];
+  }
+
+  /**
+   * 波前并行填表。和 {@link #rollingTableFillSolve(long[], long)} 一样在单行上原地更新，但是把 j 维度切分为大小为 B 的块，
+   * 第 i 个加数在第 b 块上的更新记为单元 (i, b)。只要 B 不小于最大的加数，单元 (i, b) 就只依赖：
+   * <ul>
+   *     <li>(i, b-1)：dp[j-a(i)] 位于第 b 块或第 b-1 块，必须已经是本行的值</li>
+   *     <li>(i-1, b+1)：第 b 块必须已经完成上一行的更新，且上一行不会再读取第 b 块中上一行的值，
+   *     而上一行在第 b+1 块上的更新仍然需要读取第 b 块</li>
+   * </ul>
+   * 因此单元 (i, b) 安排在第 2i+b 步执行，同一步中的单元所在的行互不相同，块之间至少相隔一块，读写的区域互不重叠，
+   * 可以通过 invokeAll 并行执行。总步数为 2(M-1) + ⌈(N+1)/B⌉，每一步之间是一次同步。
+   * <p>
+   * 不取模时使用 long 的溢出加法，加法满足结合律，因此结果和顺序实现完全相同，包括溢出之后的值。
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 等待被拆分的正整数
+   * @param modulus     模数，为 0 表示不取模
+   * @return 划分方案数量，或者对 modulus 取模的结果
+   */
+  private long wavefrontSolve(long[] addendSet, long partitioned, long modulus) {
+    // 加数集合为空时没有任何划分方案，和递归实现保持一致
+    if (addendSet.length == 0) {
+      return 0L;
+    }
+
+    var width = (int) partitioned + 1;
+    var dp = new long[width];
+    dp[0] = modulus == 0 ? 1 : 1 % modulus;
+
+    // 超过被划分数的加数不会改变任何状态，块大小只需要覆盖参与计算的加数
+    var blockSize = (int) Math.max(wavefrontBlockSize, Math.min(addendSet[addendSet.length - 1], width));
+    var blockCount = (width + blockSize - 1) / blockSize;
+    forkJoinPool.invoke(new WavefrontTask(addendSet, dp, blockSize, blockCount, modulus));
+    return dp[width - 1];
+  }
+
+  /**
+   * 使用一个加数原地更新 dp[from, to) 区间，dp[j] += dp[j-a]
+   *
+   * @param dp      单行状态
+   * @param addend  加数
+   * @param from    区间起点，包含
+   * @param to      区间终点，不包含
+   * @param modulus 模数，为 0 表示不取模
+   */
+  private static void fillRow(long[] dp, long addend, int from, int to, long modulus) {
+    if (addend >= to) {
+      return;
+    }
+    var a = (int) addend;
+    var start = Math.max(from, a);
+    if (modulus == 0) {
+      for (int j = start; j < to; j++) {
+        dp[j] += dp[j - a];
+      }
+    } else {
+      for (int j = start; j < to; j++) {
+        var value = dp[j] + dp[j - a];
+        dp[j] = value >= modulus ? value - modulus : value;
+      }
+    }
+  }
+
+  /**
+   * 波前并行填表的驱动任务，在工作线程中逐步推进波前，每一步的所有单元通过 invokeAll 并行执行
+   */
+  private static class WavefrontTask extends RecursiveAction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // 加数集合
+    private final long[] addendSet;
+
+    // 所有单元共享的单行状态
+    private final long[] dp;
+
+    // 块大小和块数量
+    private final int blockSize;
+    private final int blockCount;
+
+    // 模数，为 0 表示不取模
+    private final long modulus;
+
+    WavefrontTask(long[] addendSet, long[] dp, int blockSize, int blockCount, long modulus) {
+      this.addendSet = addendSet;
+      this.dp = dp;
+      this.blockSize = blockSize;
+      this.blockCount = blockCount;
+      this.modulus = modulus;
+    }
+
+    @Override
+    protected void compute() {
+      final int rows = addendSet.length;
+      var cells = new ArrayList<RecursiveAction>(Math.min(rows, blockCount));
+      for (int step = 0; step < 2 * (rows - 1) + blockCount; step++) {
+        // 第 step 步执行满足 2i + b == step 的单元
+        cells.clear();
+        for (int i = Math.max(0, (step - blockCount + 2) / 2); i < rows && 2 * i <= step; i++) {
+          final long addend = addendSet[i];
+          final int from = (step - 2 * i) * blockSize;
+          final int to = Math.min(from + blockSize, dp.length);
+          cells.add(new RecursiveAction() {
+            @Override
+            protected void compute() {
+              fillRow(dp, addend, from, to, modulus);
+            }
+          });
+        }
+
+        if (cells.size() == 1) {
+          cells.get(0).invoke();
+        } else {
+          invokeAll(cells);
+        }
+      }
+    }
   }
 
   /**
@@ -124,31 +513,169 @@ public class DPIntegerPartition implements IntegerPartition {
   }
 
   /**
-   * 递归解决方案，包含了可用的具体划分方案，这是一个深度优先遍历的过程，因此可以使用一个链表记录单条可用路径，然后将所有可用解返回即可。
+   * 带缓存的自顶向下实现。子问题由 (addendSize, partitionedValue) 唯一确定，共 (M+1)*(N+1) 个，
+   * 使用一维 long 数组按 addendSize * (N+1) + partitionedValue 寻址保存结果，{@link #UNSOLVED} 表示尚未求解。
+   * 每个子问题只会展开一次，时间复杂度从指数级降为 O(M*N)。
+   * <p>
+   * 注意：划分数增长极快，比如 100 用 [1,100] 划分约为 1.9 亿，而 406 用 [1,406] 划分时就会超出 long 的范围并发生溢出。
    *
-   * @param addendSet        加数集合，内部不能有重复的元素，且升序排列，必须均为正整数。不同数量的不同加数之和应该等于 `partitionedValue`
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数。不同数量的不同加数之和应该等于 `partitionedValue`
+   * @param partitioned 等待被拆分的正整数
+   * @return 返回总的划分数量
+   */
+  private long memoizedSolve(long[] addendSet, long partitioned) {
+    var memo = new long[(addendSet.length + 1) * ((int) partitioned + 1)];
+    Arrays.fill(memo, UNSOLVED);
+    return memoizedSolveImpl(addendSet, addendSet.length, partitioned, memo);
+  }
+
+  /**
+   * 带缓存的递归实现，状态转移方程和 {@link #recursiveSolve(long[], int, long)} 相同
+   *
+   * @param addendSet        加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
    * @param addendSize       加数集合只考虑最小的指定数量的加数
    * @param partitionedValue 等待被拆分的正整数
-   * @param paths            可用的划分集合，以树遍历路径的形式表示
-   * @param curPath          单条划分，不一定可用
+   * @param memo             子问题缓存，长度为 (addendSet.length + 1) * (partitioned + 1)
+   * @return 返回总的划分数量
    */
-  private void recursiveSolveWithPartitionsImpl(long[] addendSet, int addendSize, long partitionedValue, ArrayList<ArrayList<Long>> paths, ArrayList<Long> curPath) {
+  private long memoizedSolveImpl(long[] addendSet, int addendSize, long partitionedValue, long[] memo) {
     if (partitionedValue < 0 || addendSize <= 0) {
-      // 说明路径不可用
-      curPath.clear();
+      return 0L;
     } else if (partitionedValue == 0) {
-      // 可用则将当前路径添加至最终结果
-      paths.add(curPath);
-    } else {
-      var newPath = new ArrayList<>(curPath);
+      return 1L;
+    }
 
-      // 包含分支
-      var maxAddend = addendSet[addendSize - 1];
-      curPath.add(maxAddend);
-      recursiveSolveWithPartitionsImpl(addendSet, addendSize, partitionedValue - maxAddend, paths, curPath);
+    // 每一行对应一个 addendSize，行宽为 partitioned + 1
+    var rowWidth = memo.length / (addendSet.length + 1);
+    var index = addendSize * rowWidth + (int) partitionedValue;
+    if (memo[index] == UNSOLVED) {
+      memo[index] = memoizedSolveImpl(addendSet, addendSize, partitionedValue - addendSet[addendSize - 1], memo) +
+        memoizedSolveImpl(addendSet, addendSize - 1, partitionedValue, memo);
+    }
+    return memo[index];
+  }
 
-      // 不包含的分支
-      recursiveSolveWithPartitionsImpl(addendSet, addendSize - 1, partitionedValue, paths, newPath);
+  /**
+   * 并行枚举。递归树极不平衡：包含最大加数的分支很快就把剩余值减小，几乎所有的划分方案都集中在不包含的一侧，
+   * 因此不能按照深度拆分，而是按照工作量拆分。
+   * <p>
+   * 先通过 {@link #countingTable(long[], long)} 得到每个子问题 (addendSize, partitionedValue) 的划分数量，
+   * 子问题的划分数量超过阈值时，按照最大加数的使用次数 t 从大到小展开为 (addendSize-1, partitionedValue - t*a) 这些子问题，
+   * 否则由当前工作线程顺序枚举。阈值约为总数的 1/(16*并行度)，保证任务数量明显多于线程数，工作窃取可以平衡负载。
+   * <p>
+   * 子问题的展开顺序和顺序实现相同，且每个子问题的划分数量已知，所以每个叶子任务在结果中的起始位置可以提前确定，
+   * 直接写入同一个预先分配的数组，不需要在每一层合并子任务的列表。
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 等待被拆分的正整数
+   * @return 返回可用的所有划分方案，顺序和顺序实现完全一致
+   */
+  private ArrayList<ArrayList<Long>> forkJoinEnumerate(long[] addendSet, long partitioned) {
+    // 加数集合为空时没有任何划分方案，和递归实现保持一致
+    if (addendSet.length == 0) {
+      return new ArrayList<>();
+    }
+
+    var table = countingTable(addendSet, partitioned);
+    var total = table[addendSet.length][(int) partitioned];
+    // 划分数溢出时为负数，两种情况下列表都无法容纳所有的划分方案
+    if (total < 0 || total > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("too many partitions to enumerate: " + partitioned);
+    }
+
+    var leafSize = Math.max(MIN_FORK_JOIN_LEAF_SIZE, total / (16L * forkJoinPool.getParallelism()));
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ArrayList<Long>[] results = new ArrayList[(int) total];
+    forkJoinPool.invoke(new EnumerateTask(addendSet, table, addendSet.length, partitioned,
+      new long[addendSet.length], 0, results, leafSize));
+    return new ArrayList<>(Arrays.asList(results));
+  }
+
+  /**
+   * 并行枚举任务，负责子问题 (addendSize, partitionedValue) 的所有划分方案，写入 results 中从 offset 开始的连续区间。
+   * 更大的加数的使用次数已经确定，保存在 counts 中。
+   */
+  private static class EnumerateTask extends RecursiveAction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // 加数集合，升序排列
+    private final long[] addendSet;
+
+    // 完整的计数表，table[i][j] 是只使用前 i 个加数划分 j 的方案数量
+    private final long[][] table;
+
+    // 只考虑最小的 addendSize 个加数
+    private final int addendSize;
+
+    // 等待被拆分的值
+    private final long partitionedValue;
+
+    // 每个加数的使用次数，下标不小于 addendSize 的部分已经确定。每个任务独占一份
+    private final long[] counts;
+
+    // 当前子问题的划分方案在结果中的起始位置
+    private final int offset;
+
+    // 所有任务共享的结果数组，不同任务写入的区间互不重叠
+    private final ArrayList<Long>[] results;
+
+    // 子问题的划分数量不超过该值时不再拆分
+    private final long leafSize;
+
+    EnumerateTask(long[] addendSet, long[][] table, int addendSize, long partitionedValue, long[] counts, int offset,
+                  ArrayList<Long>[] results, long leafSize) {
+      this.addendSet = addendSet;
+      this.table = table;
+      this.addendSize = addendSize;
+      this.partitionedValue = partitionedValue;
+      this.counts = counts;
+      this.offset = offset;
+      this.results = results;
+      this.leafSize = leafSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (table[addendSize][(int) partitionedValue] <= leafSize) {
+        enumerateSequentially();
+        return;
+      }
+
+      // 超过阈值的子问题至少有一个加数，按照最大加数的使用次数从大到小展开，起始位置依次累加子问题的划分数量
+      var addend = addendSet[addendSize - 1];
+      var subtasks = new ArrayList<EnumerateTask>();
+      var subOffset = offset;
+      for (long t = partitionedValue / addend; t >= 0; t--) {
+        var rest = partitionedValue - t * addend;
+        var subCount = table[addendSize - 1][(int) rest];
+        if (subCount == 0) {
+          continue;
+        }
+        var subCounts = counts.clone();
+        subCounts[addendSize - 1] = t;
+        subtasks.add(new EnumerateTask(addendSet, table, addendSize - 1, rest, subCounts, subOffset, results, leafSize));
+        subOffset += (int) subCount;
+      }
+      invokeAll(subtasks);
+    }
+
+    /**
+     * 使用 {@link PartitionIterator} 顺序枚举当前子问题，和更大加数的使用次数拼接之后写入结果
+     */
+    private void enumerateSequentially() {
+      var index = offset;
+      if (addendSize == 0) {
+        // 没有可用的加数，只有剩余值恰好为 0 时才会被调度，唯一的划分方案由更大的加数组成
+        results[index] = PartitionIterator.toAddendList(addendSet, counts);
+        return;
+      }
+
+      var iterator = new PartitionIterator(Arrays.copyOf(addendSet, addendSize), partitionedValue);
+      while (iterator.hasNext()) {
+        System.arraycopy(iterator.next(), 0, counts, 0, addendSize);
+        results[index++] = PartitionIterator.toAddendList(addendSet, counts);
+      }
     }
   }
 }
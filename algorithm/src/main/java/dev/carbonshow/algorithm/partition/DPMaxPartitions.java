@@ -0,0 +1,290 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 纯 Java 实现的两阶段最大化划分：
+ * <ol>
+ *   <li>通过动态规划枚举所有划分方案</li>
+ *   <li>以 “各加数的剩余数量” 作为状态进行记忆化搜索：f(剩余数量) = max(1 + f(剩余数量 - 方案 p))，p 取所有仍然可用的方案</li>
+ * </ol>
+ * 状态按照混合进制编码为数组下标，第 i 个加数的进制为 c(i) + 1，状态总数即 ∏(c(i) + 1)。
+ * 每个划分方案的加数之和恰好为 N，所以剩余加数的总和除以 N 就是当前状态的上界，一旦某个状态达到上界就不再尝试其他方案。
+ * <p>
+ * 对于撮合中常见的小规模问题，比如 1~5 人的队伍凑 5 人，每种队伍只有几十个，这种方式省去了 native 求解器的建模和调用开销。
+ * 当状态总数超过 {@link #maxStates} 时，退回到基于整数规划的 {@link DefaultMaxPartitions}，并且只在第一次需要时才创建。
+ * <p>
+ * 记忆化数组在多次调用之间复用，因此非线程安全。
+ */
+public class DPMaxPartitions implements TwoPhaseMaxPartitions {
+
+  // 默认的状态数量上限，此时记忆化相关的三个数组各占用 4MB
+  static final int DEFAULT_MAX_STATES = 1 << 20;
+
+  // 建立基于动态规划的整数划分求解器，用于枚举划分方案，划分方案在多次调用之间缓存
+  final private CachedIntegerPartition partitionSolver = new CachedIntegerPartition(new DPIntegerPartition());
+
+  // 状态数量上限，超过后使用整数规划求解
+  final private int maxStates;
+
+  // 状态空间过大时使用的整数规划求解器，延迟创建以避免加载 native library
+  private DefaultMaxPartitions fallbackSolver;
+
+  // 记忆化数组，memo[s] 表示状态 s 下最多还能实施的划分实例数量，choice[s] 表示达到该值时首先实施的方案。多次调用之间复用
+  private int[] memo = new int[0];
+  private int[] choice = new int[0];
+
+  // stamps[s] 等于 generation 时 memo[s] 才是本次调用计算的结果，这样每次调用无需清空记忆化数组
+  private int[] stamps = new int[0];
+  private int generation = 0;
+
+  /**
+   * 使用默认的状态数量上限
+   */
+  DPMaxPartitions() {
+    this(DEFAULT_MAX_STATES);
+  }
+
+  /**
+   * @param maxStates 状态数量上限，即 ∏(c(i) + 1) 的最大值
+   */
+  DPMaxPartitions(int maxStates) {
+    if (maxStates <= 0) {
+      throw new IllegalArgumentException("maxStates must be positive: " + maxStates);
+    }
+    this.maxStates = maxStates;
+  }
+
+  /**
+   * 划分方案缓存，可以用于观察命中率
+   */
+  CachedIntegerPartition partitionCache() {
+    return partitionSolver;
+  }
+
+  /**
+   * 获取最大划分的细节数据
+   *
+   * @param addends     加数集合，key 是加数，value 是加数的数量
+   * @param partitioned 对上面的加数集合进行划分，每个划分所含加数之和应该等于该值。
+   * @return 返回最大划分的细节数据，包含每个划分的组成，以及该划分实例化之后的数据，不存在则返回 null
+   */
+  @Override
+  public ArrayList<PartitionData> solve(Map<Long, Long> addends, long partitioned) {
+    var orderedAddends = new long[addends.size()];
+    var orderedAddendCounts = new long[addends.size()];
+    MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
+
+    var partitionPlans = partitionSolver.partitionPlans(orderedAddends, partitioned);
+    var planCounts = solveWithPartitionPlan(orderedAddendCounts, partitioned, partitionPlans);
+
+    return planCounts == null ? null : partitionPlans.toPartitionData(planCounts);
+  }
+
+  /**
+   * 在已经给定划分方案的基础上，通过记忆化搜索实现划分实例数量的最大化
+   *
+   * @param orderedAddendCounts 加数的数量，和 partitionPlans 中升序排列的加数一一对应
+   * @param partitioned         被划分数，划分后的每个实例中包含若干加数，这些加数的和必须等于该值
+   * @param partitionPlans      划分方案
+   * @return 每个划分方案的实施次数，和 partitionPlans 中的方案一一对应；不存在则返回 null
+   */
+  @Override
+  public long[] solveWithPartitionPlan(long[] orderedAddendCounts, long partitioned, PartitionPlans partitionPlans) {
+    // 混合进制下每个加数的权重，状态总数超过上限时使用整数规划
+    final int kinds = partitionPlans.addendKinds();
+    var strides = new int[kinds];
+    long stateCount = 1;
+    for (int i = 0; i < kinds; i++) {
+      strides[i] = (int) stateCount;
+      stateCount *= orderedAddendCounts[i] + 1;
+      if (stateCount > maxStates) {
+        return fallbackSolver().solveWithPartitionPlan(orderedAddendCounts, partitioned, partitionPlans);
+      }
+    }
+
+    return memoizedSolve(orderedAddendCounts, partitionPlans, strides, (int) stateCount);
+  }
+
+  /**
+   * 状态空间过大时使用的求解器
+   */
+  private DefaultMaxPartitions fallbackSolver() {
+    if (fallbackSolver == null) {
+      fallbackSolver = new DefaultMaxPartitions();
+    }
+    return fallbackSolver;
+  }
+
+  /**
+   * 以显式栈实现的记忆化深度优先搜索，避免加数数量很多时递归过深。
+   * 栈的第 d 层对应已经实施了 d 个划分实例之后的状态，剩余数量 remaining 随入栈和出栈同步增减。
+   *
+   * @param addendCounts   加数数量
+   * @param partitionPlans 划分方案
+   * @param strides        混合进制下每个加数的权重
+   * @param stateCount     状态总数
+   * @return 每个划分方案的实施次数
+   */
+  private long[] memoizedSolve(long[] addendCounts, PartitionPlans partitionPlans, int[] strides, int stateCount) {
+    final int kinds = partitionPlans.addendKinds();
+    final int planCount = partitionPlans.planCount();
+
+    // 去掉单独实施一次就会超出加数数量的方案，剩余方案预先计算其在状态编码中的偏移，以及加数之和
+    var plans = new int[planCount];
+    var planOffsets = new int[planCount];
+    var planSums = new long[planCount];
+    long minPlanSum = Long.MAX_VALUE;
+    int usablePlans = 0;
+    for (int p = 0; p < planCount; p++) {
+      int offset = 0;
+      long sum = 0;
+      boolean usable = true;
+      for (int i = 0; i < kinds && usable; i++) {
+        var multiplicity = partitionPlans.multiplicity(p, i);
+        usable = multiplicity <= addendCounts[i];
+        offset += (int) multiplicity * strides[i];
+        sum += multiplicity * partitionPlans.addends()[i];
+      }
+      if (usable && offset > 0) {
+        plans[usablePlans] = p;
+        planOffsets[usablePlans] = offset;
+        planSums[usablePlans] = sum;
+        minPlanSum = Math.min(minPlanSum, sum);
+        usablePlans++;
+      }
+    }
+
+    var planCounts = new long[planCount];
+    if (usablePlans == 0) {
+      return planCounts;
+    }
+
+    prepareMemo(stateCount);
+
+    var remaining = addendCounts.clone();
+    long remainingSum = 0;
+    for (int i = 0; i < kinds; i++) {
+      remainingSum += addendCounts[i] * partitionPlans.addends()[i];
+    }
+
+    // 每个划分实例至少消耗 minPlanSum 的加数之和，栈的深度不会超过该上界
+    final int maxDepth = (int) (remainingSum / minPlanSum) + 1;
+    var stackState = new int[maxDepth];
+    var stackValue = new long[maxDepth];
+    var stackCursor = new int[maxDepth];
+    var stackBest = new int[maxDepth];
+    var stackBestPlan = new int[maxDepth];
+    var stackEnteredBy = new int[maxDepth];
+
+    final int root = stateCount - 1;
+    int depth = 0;
+    stackState[0] = root;
+    stackValue[0] = remainingSum;
+    stackBestPlan[0] = -1;
+    stackEnteredBy[0] = -1;
+
+    while (depth >= 0) {
+      // 剩余加数之和能凑出的实例数量是当前状态的上界，达到上界就不必再尝试其他方案
+      final long upperBound = stackValue[depth] / minPlanSum;
+      boolean pushed = false;
+      while (stackBest[depth] < upperBound && stackCursor[depth] < usablePlans) {
+        var k = stackCursor[depth]++;
+        if (!applicable(partitionPlans, plans[k], remaining)) {
+          continue;
+        }
+
+        var child = stackState[depth] - planOffsets[k];
+        if (stamps[child] != generation) {
+          // 子状态尚未计算，实施方案后入栈，先处理子状态
+          apply(partitionPlans, plans[k], remaining, -1);
+          var parentValue = stackValue[depth];
+          depth++;
+          stackState[depth] = child;
+          stackValue[depth] = parentValue - planSums[k];
+          stackCursor[depth] = 0;
+          stackBest[depth] = 0;
+          stackBestPlan[depth] = -1;
+          stackEnteredBy[depth] = k;
+          pushed = true;
+          break;
+        }
+
+        if (memo[child] + 1 > stackBest[depth]) {
+          stackBest[depth] = memo[child] + 1;
+          stackBestPlan[depth] = plans[k];
+        }
+      }
+      if (pushed) {
+        continue;
+      }
+
+      // 当前状态计算完毕，记录结果并出栈，同时用结果更新父状态
+      var state = stackState[depth];
+      memo[state] = stackBest[depth];
+      choice[state] = stackBestPlan[depth];
+      stamps[state] = generation;
+
+      var enteredBy = stackEnteredBy[depth];
+      depth--;
+      if (depth >= 0) {
+        apply(partitionPlans, plans[enteredBy], remaining, 1);
+        if (memo[state] + 1 > stackBest[depth]) {
+          stackBest[depth] = memo[state] + 1;
+          stackBestPlan[depth] = plans[enteredBy];
+        }
+      }
+    }
+
+    // 从初始状态出发，沿着决策数组还原每个方案的实施次数
+    var offsetsByPlan = new int[planCount];
+    for (int k = 0; k < usablePlans; k++) {
+      offsetsByPlan[plans[k]] = planOffsets[k];
+    }
+    for (int state = root; choice[state] >= 0; state -= offsetsByPlan[choice[state]]) {
+      planCounts[choice[state]]++;
+    }
+    return planCounts;
+  }
+
+  /**
+   * 开始新一轮记忆化搜索：容量不足时扩容，否则只推进 generation，使上一轮的结果全部失效
+   *
+   * @param stateCount 状态总数
+   */
+  private void prepareMemo(int stateCount) {
+    if (stamps.length < stateCount) {
+      memo = new int[stateCount];
+      choice = new int[stateCount];
+      stamps = new int[stateCount];
+      generation = 0;
+    }
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(stamps, 0);
+      generation = 1;
+    }
+  }
+
+  /**
+   * 判断剩余的加数能否再实施一次指定的划分方案
+   */
+  private static boolean applicable(PartitionPlans partitionPlans, int plan, long[] remaining) {
+    for (int i = 0; i < remaining.length; i++) {
+      if (partitionPlans.multiplicity(plan, i) > remaining[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 按照指定的方向，从剩余加数中扣除或者归还一次划分方案所需的加数
+   */
+  private static void apply(PartitionPlans partitionPlans, int plan, long[] remaining, int direction) {
+    for (int i = 0; i < remaining.length; i++) {
+      remaining[i] += direction * partitionPlans.multiplicity(plan, i);
+    }
+  }
+}
@@ -2,10 +2,7 @@ package dev.carbonshow.algorithm.partition;
 
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
-import com.google.ortools.Loader;
 import com.google.ortools.linearsolver.MPObjective;
 import com.google.ortools.linearsolver.MPSolver;
 import com.google.ortools.linearsolver.MPVariable;
@@ -17,26 +14,102 @@ import org.apache.commons.lang3.math.NumberUtils;
  *   <li>通过Integer Partition 确定整数划分方案，特别是使用动态规划</li>
  *   <li>通过整数线性规划确定划分数最多的方式</li>
  * </ol>
+ * 整数规划求解器来自 {@link MPSolverPool}，多个线程可以共享同一个实例，最大并发数由求解器池的大小决定。
+ * <p>
+ * 第二阶段支持两种求解方式，参见 {@link ProgrammingMethod}。
  */
 public class DefaultMaxPartitions implements TwoPhaseMaxPartitions {
 
-  // 建立基于动态规划，并通过递归方式实现的整数划分(Integer Partition, IP)优化器
-  final private DPIntegerPartition partitionSolver = new DPIntegerPartition();
+  /**
+   * 第二阶段，即确定各划分方案实施次数时的求解方式
+   */
+  public enum ProgrammingMethod {
+    /**
+     * 直接使用 SCIP 求解整数规划，结果一定是最优解
+     */
+    MIP,
+    /**
+     * 使用 GLOP 求解线性规划松弛，向下取整后贪心地用剩余加数补充更多实例。
+     * 线性规划的目标值向下取整就是整数解的上界，只有当相对间隙超过 maxGap 时才退回 SCIP 求解整数规划
+     */
+    LP_ROUNDING,
+  }
+
+  // 线性规划结果取整时的容差，避免 2.9999999 这样的浮点误差被向下取整为 2
+  private static final double ROUNDING_TOLERANCE = 1e-6;
+
+  // 建立基于动态规划，并通过递归方式实现的整数划分(Integer Partition, IP)优化器，划分方案在多次调用之间缓存
+  final private CachedIntegerPartition partitionSolver = new CachedIntegerPartition(new DPIntegerPartition());
+
+  // 整数规划器池
+  final private MPSolverPool programmingSolverPool;
+
+  // 线性规划器池，只在 LP_ROUNDING 模式下使用
+  final private MPSolverPool relaxationSolverPool;
 
-  // 整数规划器
-  final private MPSolver programmingSolver;
+  // 第二阶段的求解方式
+  final private ProgrammingMethod programmingMethod;
+
+  // LP_ROUNDING 模式下可以接受的最大相对间隙，超过后退回整数规划
+  final private double maxGap;
+
+  // 是否在整数规划之前去掉不可行和被支配的划分方案
+  final private boolean pruning;
 
   /**
-   * 构造入口，提前加载整数线性规划的 native library，通过 JNI 接口调用 c++ 实现
+   * 构造入口，创建只包含一个 SCIP 求解器的池，并发调用时会依次执行
    */
   DefaultMaxPartitions() {
-    Loader.loadNativeLibraries();
+    this(new MPSolverPool("SCIP", 1));
+  }
+
+  /**
+   * 使用给定的整数规划求解器池，池中的求解器需要支持整数规划，比如 SCIP
+   *
+   * @param programmingSolverPool 整数规划求解器池，可以在多个实例之间共享
+   */
+  DefaultMaxPartitions(MPSolverPool programmingSolverPool) {
+    this(ProgrammingMethod.MIP, 0, true, programmingSolverPool, null);
+  }
 
-    // 基于 SCIP 实现整数规划
-    programmingSolver = MPSolver.createSolver("SCIP");
-    if (programmingSolver == null) {
-      throw new RuntimeException("fail to create integer programming solver");
+  /**
+   * 指定求解方式，各自创建只包含一个求解器的池
+   *
+   * @param programmingMethod 第二阶段的求解方式
+   * @param maxGap            LP_ROUNDING 模式下可以接受的最大相对间隙，比如 0.05 表示和最优解最多相差 5%
+   */
+  DefaultMaxPartitions(ProgrammingMethod programmingMethod, double maxGap) {
+    this(programmingMethod, maxGap, true, new MPSolverPool("SCIP", 1),
+      programmingMethod == ProgrammingMethod.LP_ROUNDING ? new MPSolverPool("GLOP", 1) : null);
+  }
+
+  /**
+   * @param programmingMethod     第二阶段的求解方式
+   * @param maxGap                LP_ROUNDING 模式下可以接受的最大相对间隙
+   * @param pruning               是否在整数规划之前通过 {@link PartitionPlanPruner} 去掉不可行和被支配的划分方案
+   * @param programmingSolverPool 整数规划求解器池，比如 SCIP
+   * @param relaxationSolverPool  线性规划求解器池，比如 GLOP，LP_ROUNDING 模式下不能为空
+   */
+  DefaultMaxPartitions(ProgrammingMethod programmingMethod, double maxGap, boolean pruning,
+                       MPSolverPool programmingSolverPool, MPSolverPool relaxationSolverPool) {
+    if (programmingMethod == ProgrammingMethod.LP_ROUNDING && relaxationSolverPool == null) {
+      throw new IllegalArgumentException("relaxation solver pool is required for LP_ROUNDING");
+    }
+    if (maxGap < 0) {
+      throw new IllegalArgumentException("maxGap must not be negative: " + maxGap);
     }
+    this.programmingMethod = programmingMethod;
+    this.maxGap = maxGap;
+    this.pruning = pruning;
+    this.programmingSolverPool = programmingSolverPool;
+    this.relaxationSolverPool = relaxationSolverPool;
+  }
+
+  /**
+   * 划分方案缓存，可以用于观察命中率
+   */
+  CachedIntegerPartition partitionCache() {
+    return partitionSolver;
   }
 
   /**
@@ -47,98 +120,232 @@ public class DefaultMaxPartitions implements TwoPhaseMaxPartitions {
    */
   @Override
   public ArrayList<PartitionData> solve(Map<Long, Long> addends, long partitioned) {
+    var result = solveWithGap(addends, partitioned);
+    return result == null ? null : result.partitions();
+  }
+
+  /**
+   * 获取最大划分的细节数据，同时返回实际的划分实例总数及其上界，调用方可以据此判断结果和最优解的差距
+   *
+   * @param addends     加数集合，key 是加数，value 是加数的数量
+   * @param partitioned 对上面的加数集合进行划分，每个划分所含加数之和应该等于该值。
+   * @return 最大划分结果，不存在则返回 null
+   */
+  public MaxPartitionsResult solveWithGap(Map<Long, Long> addends, long partitioned) {
     var orderedAddends = new long[addends.size()];
     var orderedAddendCounts = new long[addends.size()];
     MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
 
     var partitionPlans = solveIntegerPartition(orderedAddends, partitioned);
+    if (!pruning) {
+      var solution = solvePlanCounts(orderedAddendCounts, partitionPlans);
+      return solution == null ? null
+        : new MaxPartitionsResult(partitionPlans.toPartitionData(solution.planCounts()), solution.objective(), solution.bound(), 0);
+    }
+
+    // 剪枝只缩小整数规划的规模，结果仍然包含所有划分方案，被去掉的方案实施次数为 0
+    var pruned = PartitionPlanPruner.prune(orderedAddendCounts, partitionPlans);
+    var solution = solvePlanCounts(orderedAddendCounts, pruned.plans());
+    if (solution == null) {
+      return null;
+    }
 
-    return solveImpl(orderedAddends, orderedAddendCounts, partitionPlans);
+    var planCounts = pruned.expand(solution.planCounts(), partitionPlans.planCount());
+    return new MaxPartitionsResult(partitionPlans.toPartitionData(planCounts), solution.objective(), solution.bound(), pruned.removed());
   }
 
   /**
    * 在已经给定划分方案的基础上，进行通过整数线性规划实现划分实例数量的最大化
    *
-   * @param addends 加数集合，key 是加数，value 是加数的数量
+   * @param orderedAddendCounts 加数的数量，和 partitionPlans 中升序排列的加数一一对应
    * @param partitioned 被划分数，划分后的每个实例中包含若干加数，这些加数的和必须等于该值
    * @param partitionPlans 划分方案
-   * @return 返回最大划分的细节数据，包含每个划分的组成，以及该划分实例化之后的数据
+   * @return 每个划分方案的实施次数，和 partitionPlans 中的方案一一对应；不存在则返回 null
    */
   @Override
-  public ArrayList<PartitionData> solveWithPartitionPlan(Map<Long, Long> addends, long partitioned, ArrayList<Map<Long, Long>> partitionPlans) {
-    var orderedAddends = new long[addends.size()];
-    var orderedAddendCounts = new long[addends.size()];
-    MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
+  public long[] solveWithPartitionPlan(long[] orderedAddendCounts, long partitioned, PartitionPlans partitionPlans) {
+    if (!pruning) {
+      var solution = solvePlanCounts(orderedAddendCounts, partitionPlans);
+      return solution == null ? null : solution.planCounts();
+    }
 
-    return solveImpl(orderedAddends, orderedAddendCounts, partitionPlans);
+    // 在剪枝后的方案上求解，再还原为和传入方案一一对应的实施次数
+    var pruned = PartitionPlanPruner.prune(orderedAddendCounts, partitionPlans);
+    var solution = solvePlanCounts(orderedAddendCounts, pruned.plans());
+    return solution == null ? null : pruned.expand(solution.planCounts(), partitionPlans.planCount());
   }
 
   /**
-   * 求解过程的具体实现，包含以下几个主要步骤：
-   * <ol>
-   *   <li>加数排序</li>
-   *   <li>基于加数集合，在不考虑加数限制的情况下，生成划分方案</li>
-   *   <li>通过线性规划，考虑加数总数限制前提下，所有可能划分方案实例化总数的最大化</li>
-   * </ol>
-   * @param orderedAddends 升序排列的加数数组
-   * @param orderedAddendCounts 加数对应的数量，和 orderedAddends 中加数出现的顺序一一对应
-   * @param partitionPlans 划分方案列表，每个划分方案以 Map 形式表示，key 是加数，value 是加数出现次数
-   * @return 返回划分详细数据列表，不存在则返回 null
+   * 针对给定的加数集合，生成划分方案集合
+   *
+   * @param orderedAddends 升序排列的加数列表
+   * @param partitioned    目标凑数值，每种划分方案中加数组合之和
+   * @return 划分方案集合，以紧凑形式保存每个方案中各加数的使用次数
    */
-  private ArrayList<PartitionData> solveImpl(long[] orderedAddends, long[] orderedAddendCounts, ArrayList<Map<Long, Long>> partitionPlans) {
-
-    // 进行线性规划，计算划分方案实例化之后总数最大化的情况
-    var planCounts = solveIntegerProgramming(orderedAddends, orderedAddendCounts, partitionPlans);
-    if (planCounts == null) {
-      return null;
-    }
+  private PartitionPlans solveIntegerPartition(long[] orderedAddends, long partitioned) {
+    // 惰性枚举划分方案并直接写入紧凑的数组，不再经过装箱的列表和 Map
+    return partitionSolver.partitionPlans(orderedAddends, partitioned);
+  }
 
-    var result = new ArrayList<PartitionData>();
-    for (int j = 0; j < partitionPlans.size(); j++) {
-      result.add(new PartitionData(partitionPlans.get(j), planCounts.get(j)));
-    }
-    return result;
+  /**
+   * 各划分方案的实施次数，以及实施总数的上界
+   *
+   * @param planCounts 每个划分方案的实施次数
+   * @param objective  实施次数之和
+   * @param bound      实施次数之和的上界
+   */
+  private record PlanCountsSolution(long[] planCounts, long objective, long bound) {
   }
 
   /**
-   * 针对给定的加数集合，生成划分方案集合
+   * 按照当前的求解方式计算各划分方案的实施次数
    *
-   * @param orderedAddends 升序排列的加数列表
-   * @param partitioned    目标凑数值，每种划分方案中加数组合之和
-   * @return 划分方案列表，每个方案是一个 Map，key 表示加数，value 表示加数数量
+   * @param addendCounts   加数数量列表，与 partitionPlans 中的加数一一对应
+   * @param partitionPlans 划分方案集合
+   * @return 实施次数及其上界，无解则返回 null
    */
-  private ArrayList<Map<Long, Long>> solveIntegerPartition(long[] orderedAddends, long partitioned) {
+  private PlanCountsSolution solvePlanCounts(long[] addendCounts, PartitionPlans partitionPlans) {
+    if (programmingMethod == ProgrammingMethod.LP_ROUNDING) {
+      var rounded = relaxationSolverPool.execute(solver -> solveRelaxationAndRound(solver, addendCounts, partitionPlans));
+      if (rounded != null && (double) (rounded.bound() - rounded.objective()) <= maxGap * rounded.bound()) {
+        return rounded;
+      }
+    }
 
-    // 获取排列方案列表
-    return partitionSolver.solveWithPartitions(orderedAddends, partitioned)
-      .stream().map(partition ->
-        partition.stream().collect(Collectors.groupingBy(Function.identity(), Collectors.counting())))
-      .collect(Collectors.toCollection(ArrayList::new));
+    // 进行整数规划，计算划分方案实例化之后总数最大化的情况
+    var planCounts = programmingSolverPool.execute(solver -> solveIntegerProgramming(solver, addendCounts, partitionPlans));
+    if (planCounts == null) {
+      return null;
+    }
+    var objective = Arrays.stream(planCounts).sum();
+    return new PlanCountsSolution(planCounts, objective, objective);
   }
 
   /**
    * 使用整数规划计算划分总数的最大值。对于划分方案 P(i)，假设该方案可以重复 d(i)次。
    * 约束条件是：每种加数被使用的次数不能超过自己的最大数量
    * 优化目标是：d(i)的总数最大化
-   * @param addends 加数列表
-   * @param addendCounts 加数数量列表，与 addends 一一对应
-   * @param partitionPlans 划分方案列表
+   * @param programmingSolver 从求解器池中借用的整数规划求解器，已经被清理过
+   * @param addendCounts 加数数量列表，与 partitionPlans 中的加数一一对应
+   * @param partitionPlans 划分方案集合
    * @return 返回各个方案的出现次数，如果无解则返回 null
    */
-  private ArrayList<Integer> solveIntegerProgramming(long[] addends, long[] addendCounts, ArrayList<Map<Long, Long>> partitionPlans) {
-    // 先清理优化器，之前可能已经调用过
-    programmingSolver.clear();
+  private static long[] solveIntegerProgramming(MPSolver programmingSolver, long[] addendCounts, PartitionPlans partitionPlans) {
+    var variables = buildProgrammingModel(programmingSolver, true, addendCounts, partitionPlans);
+
+    // 求解
+    final MPSolver.ResultStatus resultStatus = programmingSolver.solve();
+    if (resultStatus == MPSolver.ResultStatus.OPTIMAL) {
+      // 获得最优解
+      var planCounts = new long[variables.length];
+      for (int i = 0; i < variables.length; i++) {
+        planCounts[i] = Math.round(variables[i].solutionValue());
+      }
+      return planCounts;
+    } else {
+      // 无解
+      return null;
+    }
+  }
+
+  /**
+   * 求解线性规划松弛，并将结果取整为可行的整数解：
+   * <ol>
+   *   <li>每个方案的实施次数向下取整，此时一定满足加数数量的约束</li>
+   *   <li>按照小数部分从大到小的顺序，用剩余的加数尽可能多地实施各个方案</li>
+   * </ol>
+   * 线性规划的目标值是整数规划的上界，由于目标值一定是整数，向下取整后仍然是上界。
+   *
+   * @param relaxationSolver 从求解器池中借用的线性规划求解器，已经被清理过
+   * @param addendCounts     加数数量列表，与 partitionPlans 中的加数一一对应
+   * @param partitionPlans   划分方案集合
+   * @return 取整后的实施次数及其上界，线性规划无解则返回 null
+   */
+  private static PlanCountsSolution solveRelaxationAndRound(MPSolver relaxationSolver, long[] addendCounts, PartitionPlans partitionPlans) {
+    var variables = buildProgrammingModel(relaxationSolver, false, addendCounts, partitionPlans);
+    if (relaxationSolver.solve() != MPSolver.ResultStatus.OPTIMAL) {
+      return null;
+    }
 
+    final int planCount = variables.length;
+    final int addendKinds = partitionPlans.addendKinds();
+    var planCounts = new long[planCount];
+    var fractions = new double[planCount];
+    var remaining = addendCounts.clone();
+    double relaxedObjective = 0;
+    for (int p = 0; p < planCount; p++) {
+      var value = variables[p].solutionValue();
+      relaxedObjective += value;
+      planCounts[p] = (long) Math.floor(value + ROUNDING_TOLERANCE);
+      fractions[p] = value - planCounts[p];
+      for (int i = 0; i < addendKinds; i++) {
+        remaining[i] -= planCounts[p] * partitionPlans.multiplicity(p, i);
+      }
+    }
+
+    // 容差可能使个别方案多取整了一次，回退这些方案直到满足加数数量约束
+    for (int i = 0; i < addendKinds; i++) {
+      for (int p = 0; p < planCount && remaining[i] < 0; p++) {
+        while (remaining[i] < 0 && planCounts[p] > 0 && partitionPlans.multiplicity(p, i) > 0) {
+          planCounts[p]--;
+          for (int k = 0; k < addendKinds; k++) {
+            remaining[k] += partitionPlans.multiplicity(p, k);
+          }
+        }
+      }
+    }
+
+    // 向下取整后剩余的加数，优先补充给小数部分更大的方案
+    var fillOrder = new Integer[planCount];
+    for (int p = 0; p < planCount; p++) {
+      fillOrder[p] = p;
+    }
+    Arrays.sort(fillOrder, (a, b) -> Double.compare(fractions[b], fractions[a]));
+
+    long objective = 0;
+    for (var p : fillOrder) {
+      long extra = Long.MAX_VALUE;
+      for (int i = 0; i < addendKinds; i++) {
+        var multiplicity = partitionPlans.multiplicity(p, i);
+        if (multiplicity > 0) {
+          extra = Math.min(extra, remaining[i] / multiplicity);
+        }
+      }
+      if (extra > 0 && extra != Long.MAX_VALUE) {
+        planCounts[p] += extra;
+        for (int i = 0; i < addendKinds; i++) {
+          remaining[i] -= extra * partitionPlans.multiplicity(p, i);
+        }
+      }
+      objective += planCounts[p];
+    }
+
+    var bound = (long) Math.floor(relaxedObjective + ROUNDING_TOLERANCE);
+    return new PlanCountsSolution(planCounts, objective, Math.max(bound, objective));
+  }
+
+  /**
+   * 建立整数规划模型，或者其线性规划松弛
+   *
+   * @param programmingSolver 已经被清理过的求解器
+   * @param integral          true 表示决策变量为整数，false 表示线性规划松弛
+   * @param addendCounts      加数数量列表，与 partitionPlans 中的加数一一对应
+   * @param partitionPlans    划分方案集合
+   * @return 决策变量，即每个划分方案的实施次数
+   */
+  private static MPVariable[] buildProgrammingModel(MPSolver programmingSolver, boolean integral, long[] addendCounts, PartitionPlans partitionPlans) {
     // 决策变量，每种划分方案出现的次数，取值范围是 [0, max(c(i))]，c(i)表示第 i 个加数的总数
+    final int planCount = partitionPlans.planCount();
     var addendMaxCount = NumberUtils.max(addendCounts);
-    ArrayList<MPVariable> partitionPlanCountVariables = new ArrayList<>(partitionPlans.size());
-    for (int i = 0; i < partitionPlans.size(); i++) {
-      partitionPlanCountVariables.add(programmingSolver.makeIntVar(0, addendMaxCount, "p"+i));
+    MPVariable[] partitionPlanCountVariables = new MPVariable[planCount];
+    for (int i = 0; i < planCount; i++) {
+      partitionPlanCountVariables[i] = integral
+        ? programmingSolver.makeIntVar(0, addendMaxCount, "p" + i)
+        : programmingSolver.makeNumVar(0, addendMaxCount, "p" + i);
     }
 
     // 约束条件，每个加数在所有方案中出现的总次数不得超过其总数，所以约束条件数量和加数相同
-    for (int i =0; i < addends.length; i++) {
-      final var addend = addends[i];
+    for (int i =0; i < partitionPlans.addendKinds(); i++) {
       final var addendCountTotal = addendCounts[i];
 
       // 加数的约束条件，使用的总次数一定处于 [0, addendCountTotal] 之内
@@ -148,25 +355,18 @@ public class DefaultMaxPartitions implements TwoPhaseMaxPartitions {
       // 加数使用总次数 = 方案1实施次数*方案1内加数使用次数 + 方案2实施次数*方案2内加数使用次数 + ...
       // 加数使用总次数 ≤ 加数总数
       // 向该约束条件中，第 i 个加数的系数，即每个方案出现次数和该方案内该加数出现次数的乘积，之和
-      for (int planIndex = 0; planIndex < partitionPlans.size(); planIndex++) {
-        long addendCountUsedByCurPlan = partitionPlans.get(planIndex).getOrDefault(addend, 0L);
-        constraint.setCoefficient(partitionPlanCountVariables.get(planIndex), addendCountUsedByCurPlan);
+      for (int planIndex = 0; planIndex < planCount; planIndex++) {
+        long addendCountUsedByCurPlan = partitionPlans.multiplicity(planIndex, i);
+        constraint.setCoefficient(partitionPlanCountVariables[planIndex], addendCountUsedByCurPlan);
       }
     }
 
     // 设置优化目标，即各个方案出现次数之和的最大值，即所有决策变量的系数均为 1
     MPObjective objective = programmingSolver.objective();
-    partitionPlanCountVariables.forEach(variable -> objective.setCoefficient(variable, 1));
-    objective.setMaximization();
-
-    // 求解
-    final MPSolver.ResultStatus resultStatus = programmingSolver.solve();
-    if (resultStatus == MPSolver.ResultStatus.OPTIMAL) {
-      // 获得最优解
-      return partitionPlanCountVariables.stream().map(variable -> (int)variable.solutionValue()).collect(Collectors.toCollection(ArrayList::new));
-    } else {
-      // 无解
-      return null;
+    for (var variable : partitionPlanCountVariables) {
+      objective.setCoefficient(variable, 1);
     }
+    objective.setMaximization();
+    return partitionPlanCountVariables;
   }
 }
@@ -0,0 +1,212 @@
+package dev.carbonshow.algorithm.partition;
+
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+import dev.carbonshow.algorithm.NativeLibraries;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 增量求解的两阶段最大化划分。撮合中每个 tick 的加数集合和被划分数基本不变，只有各加数的数量小幅变化，
+ * 因此整数规划模型在多次调用之间保持存活：
+ * <ul>
+ *     <li>加数集合或者被划分数变化时，重新枚举划分方案并重建模型</li>
+ *     <li>否则只更新数量发生变化的加数约束的上界，以及决策变量的上界</li>
+ *     <li>把上一次的解修正为满足新约束的可行解，作为提示 (hint) 交给求解器热启动</li>
+ * </ul>
+ * 模型属于实例本身，所有求解方法都是同步的，多线程共享时会依次执行。
+ */
+public class IncrementalMaxPartitions implements MaxPartitions {
+
+  // 建立基于动态规划的整数划分求解器，只在重建模型时使用
+  final private DPIntegerPartition partitionSolver = new DPIntegerPartition();
+
+  // 整数规划器，第一次求解时创建，模型在多次调用之间保留
+  private MPSolver programmingSolver;
+
+  // 当前模型对应的加数集合和被划分数，为 null 表示尚未建模
+  private long[] modelAddends;
+  private long modelPartitioned;
+
+  // 当前模型的划分方案、决策变量和加数约束
+  private PartitionPlans partitionPlans;
+  private MPVariable[] planCountVariables;
+  private MPConstraint[] addendConstraints;
+
+  // 当前模型中各加数的数量，以及决策变量的上界
+  private long[] modelAddendCounts;
+  private long variableUpperBound;
+
+  // 上一次求解得到的各方案实施次数，用于热启动
+  private long[] lastPlanCounts;
+
+  // 模型重建的次数
+  private int rebuildCount = 0;
+
+  /**
+   * 构造入口，不做任何 native 操作，整数规划器在第一次求解时创建
+   */
+  IncrementalMaxPartitions() {
+  }
+
+  /**
+   * 获取最大划分的细节数据，和上一次调用相比只有加数数量变化时，复用已有的模型并热启动
+   *
+   * @param addends     加数集合，key 是加数，value 是加数的数量
+   * @param partitioned 对上面的加数集合进行划分，每个划分所含加数之和应该等于该值。
+   * @return 返回最大划分的细节数据，包含每个划分的组成，以及该划分实例化之后的数据，不存在则返回 null
+   */
+  @Override
+  public synchronized ArrayList<PartitionData> solve(Map<Long, Long> addends, long partitioned) {
+    var orderedAddends = new long[addends.size()];
+    var orderedAddendCounts = new long[addends.size()];
+    MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
+
+    if (modelAddends == null || modelPartitioned != partitioned || !Arrays.equals(modelAddends, orderedAddends)) {
+      rebuildModel(orderedAddends, orderedAddendCounts, partitioned);
+    } else {
+      updateModel(orderedAddendCounts);
+    }
+
+    // 求解
+    if (programmingSolver.solve() != MPSolver.ResultStatus.OPTIMAL) {
+      lastPlanCounts = null;
+      return null;
+    }
+
+    var planCounts = new long[planCountVariables.length];
+    for (int p = 0; p < planCounts.length; p++) {
+      planCounts[p] = Math.round(planCountVariables[p].solutionValue());
+    }
+    lastPlanCounts = planCounts;
+    return partitionPlans.toPartitionData(planCounts);
+  }
+
+  /**
+   * 模型重建的次数，加数集合和被划分数不变时不会增加
+   */
+  public synchronized int rebuildCount() {
+    return rebuildCount;
+  }
+
+  /**
+   * 重新枚举划分方案并建立整数规划模型，和 {@link DefaultMaxPartitions} 的模型相同
+   *
+   * @param orderedAddends      升序排列的加数
+   * @param orderedAddendCounts 加数的数量
+   * @param partitioned         被划分数
+   */
+  private void rebuildModel(long[] orderedAddends, long[] orderedAddendCounts, long partitioned) {
+    if (programmingSolver == null) {
+      NativeLibraries.ensureLoaded();
+      programmingSolver = MPSolver.createSolver("SCIP");
+      if (programmingSolver == null) {
+        throw new RuntimeException("fail to create integer programming solver");
+      }
+    }
+    programmingSolver.clear();
+    rebuildCount++;
+
+    modelAddends = orderedAddends;
+    modelPartitioned = partitioned;
+    modelAddendCounts = orderedAddendCounts.clone();
+    partitionPlans = partitionSolver.partitionPlans(orderedAddends, partitioned);
+    lastPlanCounts = null;
+
+    // 决策变量，每种划分方案出现的次数，取值范围是 [0, max(c(i))]
+    final int planCount = partitionPlans.planCount();
+    variableUpperBound = orderedAddendCounts.length == 0 ? 0 : NumberUtils.max(orderedAddendCounts);
+    planCountVariables = new MPVariable[planCount];
+    for (int p = 0; p < planCount; p++) {
+      planCountVariables[p] = programmingSolver.makeIntVar(0, variableUpperBound, "p" + p);
+    }
+
+    // 约束条件，每个加数在所有方案中出现的总次数不得超过其总数，之后只会更新上界
+    addendConstraints = new MPConstraint[partitionPlans.addendKinds()];
+    for (int i = 0; i < addendConstraints.length; i++) {
+      addendConstraints[i] = programmingSolver.makeConstraint(0, orderedAddendCounts[i], "c" + i);
+      for (int p = 0; p < planCount; p++) {
+        addendConstraints[i].setCoefficient(planCountVariables[p], partitionPlans.multiplicity(p, i));
+      }
+    }
+
+    // 设置优化目标，即各个方案出现次数之和的最大值
+    MPObjective objective = programmingSolver.objective();
+    for (var variable : planCountVariables) {
+      objective.setCoefficient(variable, 1);
+    }
+    objective.setMaximization();
+  }
+
+  /**
+   * 只更新发生变化的加数约束上界，并将上一次的解修正为可行解作为提示
+   *
+   * @param orderedAddendCounts 新的加数数量
+   */
+  private void updateModel(long[] orderedAddendCounts) {
+    for (int i = 0; i < orderedAddendCounts.length; i++) {
+      if (orderedAddendCounts[i] != modelAddendCounts[i]) {
+        addendConstraints[i].setUb(orderedAddendCounts[i]);
+        modelAddendCounts[i] = orderedAddendCounts[i];
+      }
+    }
+
+    var upperBound = orderedAddendCounts.length == 0 ? 0 : NumberUtils.max(orderedAddendCounts);
+    if (upperBound != variableUpperBound) {
+      variableUpperBound = upperBound;
+      for (var variable : planCountVariables) {
+        variable.setUb(upperBound);
+      }
+    }
+
+    if (lastPlanCounts != null) {
+      var hint = repairedHint(lastPlanCounts, orderedAddendCounts);
+      programmingSolver.setHint(planCountVariables, hint);
+    }
+  }
+
+  /**
+   * 加数数量减少后，上一次的解可能不再可行。依次减少使用了超额加数的方案的实施次数，直到满足所有约束
+   *
+   * @param planCounts   上一次的实施次数
+   * @param addendCounts 新的加数数量
+   * @return 满足新约束的实施次数，作为求解器的提示
+   */
+  private double[] repairedHint(long[] planCounts, long[] addendCounts) {
+    final int kinds = addendCounts.length;
+    var counts = planCounts.clone();
+    var used = new long[kinds];
+    for (int p = 0; p < counts.length; p++) {
+      for (int i = 0; i < kinds; i++) {
+        used[i] += counts[p] * partitionPlans.multiplicity(p, i);
+      }
+    }
+
+    for (int i = 0; i < kinds; i++) {
+      for (int p = 0; p < counts.length && used[i] > addendCounts[i]; p++) {
+        var multiplicity = partitionPlans.multiplicity(p, i);
+        if (multiplicity == 0 || counts[p] == 0) {
+          continue;
+        }
+        // 减少到刚好满足当前加数的约束，同时归还该方案占用的其他加数
+        var excess = used[i] - addendCounts[i];
+        var reduce = Math.min(counts[p], (excess + multiplicity - 1) / multiplicity);
+        counts[p] -= reduce;
+        for (int k = 0; k < kinds; k++) {
+          used[k] -= reduce * partitionPlans.multiplicity(p, k);
+        }
+      }
+    }
+
+    var hint = new double[counts.length];
+    for (int p = 0; p < counts.length; p++) {
+      hint[p] = Math.min(counts[p], variableUpperBound);
+    }
+    return hint;
+  }
+}
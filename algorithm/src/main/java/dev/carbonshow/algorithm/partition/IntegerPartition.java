@@ -1,6 +1,11 @@
 package dev.carbonshow.algorithm.partition;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 整数划分，给定一个整数 N，给定一个加数集合 A(M)，加数集合中包含 M 个互不相同的元素。
@@ -25,4 +30,103 @@ public interface IntegerPartition {
    * @return 返回所有的划分方案，一维区分不同划分方案，二维表示一个划分方案中的加数选择。该方案集合一定对应最大划分数。
    */
   ArrayList<ArrayList<Long>> solveWithPartitions(long[] addendSet, long partitioned);
+
+  /**
+   * 惰性获取所有划分方案，每次只生成一个划分方案，调用方可以随时停止。
+   * 每个划分方案以加数使用次数的形式表示，数组中第 i 个元素是 addendSet[i] 的使用次数。
+   * <p>
+   * <b>注意：</b>返回的数组会被迭代器复用，需要保留时请自行拷贝
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @return 划分方案的迭代器，顺序和 {@link DPIntegerPartition#solveWithPartitions(long[], long)} 相同
+   */
+  default Iterator<long[]> partitionIterator(long[] addendSet, long partitioned) {
+    return new PartitionIterator(addendSet, partitioned);
+  }
+
+  /**
+   * 以 Stream 的形式惰性获取所有划分方案，便于过滤、短路等操作，比如 {@code anyMatch}，{@code limit}。
+   * <p>
+   * <b>注意：</b>流中的元素是同一个被复用的数组，需要收集时请先拷贝，比如 {@code map(long[]::clone)}
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @return 顺序流，每个元素是加数使用次数数组
+   */
+  default Stream<long[]> partitionStream(long[] addendSet, long partitioned) {
+    var spliterator = Spliterators.spliteratorUnknownSize(partitionIterator(addendSet, partitioned),
+      Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false);
+  }
+
+  /**
+   * 获取所有划分方案，并以紧凑的 {@link PartitionPlans} 形式保存，不会为每个划分方案创建装箱的列表或 Map
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @return 所有划分方案
+   */
+  default PartitionPlans partitionPlans(long[] addendSet, long partitioned) {
+    return PartitionPlans.of(addendSet, partitionIterator(addendSet, partitioned));
+  }
+
+  /**
+   * 获取满足附加约束的划分方案数量。默认逐个枚举并计数，实现类可以重写，比如 {@link DPIntegerPartition} 没有自定义判断时直接计数
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @param constraints 附加约束，使用上限和加数集合一一对应
+   * @return 满足约束的划分方案数量
+   */
+  default long solve(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    long count = 0;
+    var iterator = partitionIterator(addendSet, partitioned, constraints);
+    while (iterator.hasNext()) {
+      iterator.next();
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * 获取满足附加约束的划分方案细节，约束在枚举过程中用于剪枝，而不是在得到所有方案之后过滤
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @param constraints 附加约束，使用上限和加数集合一一对应
+   * @return 满足约束的划分方案，每个方案中的加数按降序排列
+   */
+  default ArrayList<ArrayList<Long>> solveWithPartitions(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    var partitions = new ArrayList<ArrayList<Long>>();
+    var iterator = partitionIterator(addendSet, partitioned, constraints);
+    while (iterator.hasNext()) {
+      partitions.add(PartitionIterator.toAddendList(addendSet, iterator.next()));
+    }
+    return partitions;
+  }
+
+  /**
+   * 惰性获取满足附加约束的划分方案，参见 {@link #partitionIterator(long[], long)}
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @param constraints 附加约束，使用上限和加数集合一一对应
+   * @return 划分方案的迭代器，返回的数组会被复用
+   */
+  default Iterator<long[]> partitionIterator(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    return new PartitionIterator(addendSet, partitioned, constraints);
+  }
+
+  /**
+   * 获取满足附加约束的划分方案，并以紧凑的 {@link PartitionPlans} 形式保存
+   *
+   * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+   * @param partitioned 被划分的正整数
+   * @param constraints 附加约束，使用上限和加数集合一一对应
+   * @return 满足约束的划分方案
+   */
+  default PartitionPlans partitionPlans(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+    return PartitionPlans.of(addendSet, partitionIterator(addendSet, partitioned, constraints));
+  }
 }
@@ -1,6 +1,5 @@
 package dev.carbonshow.algorithm.partition;
 
-import com.google.ortools.Loader;
 import com.google.ortools.linearsolver.MPObjective;
 import com.google.ortools.linearsolver.MPSolver;
 import com.google.ortools.linearsolver.MPVariable;
@@ -28,17 +27,53 @@ import java.util.Map;
  *     </li>
  *     <li>优化目标是：Variables[MAX_PARTITIONS_NUM] 中各变量之和最大化 </li>
  * </ul>
+ * 默认使用 {@link Formulation#COMPACT} 的建模方式，缩小划分数量的上限并消除划分之间的对称性，
+ * {@link Formulation#FULL} 保留原始的建模方式，用于性能对比。
+ * <p>
+ * 求解器来自 {@link MPSolverPool}，多个线程可以共享同一个实例，最大并发数由求解器池的大小决定。
  */
 public class IntegerProgrammingMaxPartitions implements MaxPartitions {
-    // 基于 Google OR-Tools 的数学优化器
-    final private MPSolver solver;
+
+    /**
+     * 整数规划模型的建模方式
+     */
+    public enum Formulation {
+        /**
+         * 原始模型：划分数量的上限为所有加数数量之和，各个划分之间可以任意交换
+         */
+        FULL,
+        /**
+         * 紧凑模型：
+         * <ul>
+         *     <li>划分数量的上限为 min(∑c(i), ⌊∑a(i)c(i) / N⌋)，因为每个划分都要消耗 N 的加数之和</li>
+         *     <li>添加约束 p(j) ≥ p(j+1)，只允许编号靠前的划分存在，消除划分之间的交换对称性</li>
+         *     <li>单个划分中加数 a(i) 的使用次数不超过 min(c(i), ⌊N / a(i)⌋)</li>
+         * </ul>
+         */
+        COMPACT,
+    }
+
+    // 基于 Google OR-Tools 的数学优化器池
+    final private MPSolverPool solverPool;
+
+    // 建模方式
+    final private Formulation formulation;
 
     IntegerProgrammingMaxPartitions() {
-        Loader.loadNativeLibraries();
-        solver = MPSolver.createSolver("SCIP");
-        if (solver == null) {
-            throw new RuntimeException("fail to create solver for IntegerProgramming");
-        }
+        this(Formulation.COMPACT);
+    }
+
+    IntegerProgrammingMaxPartitions(Formulation formulation) {
+        this(formulation, new MPSolverPool("SCIP", 1));
+    }
+
+    /**
+     * @param formulation 建模方式
+     * @param solverPool  整数规划求解器池，比如 SCIP，可以在多个实例之间共享
+     */
+    IntegerProgrammingMaxPartitions(Formulation formulation, MPSolverPool solverPool) {
+        this.formulation = formulation;
+        this.solverPool = solverPool;
     }
 
     /**
@@ -55,23 +90,38 @@ public class IntegerProgrammingMaxPartitions implements MaxPartitions {
      */
     @Override
     public ArrayList<PartitionData> solve(Map<Long, Long> addends, long partitioned) {
-        // 清理求解器
-        solver.clear();
-
-        // 确定加数种类的最大数量和划分的最大数量，划分最大数量一定不超过所有加数数量之和
-        final int maxAddendKinds = addends.size();
-        final int maxPartitions = addends.values().stream().mapToInt(Long::intValue).sum();
+        return solverPool.execute(solver -> solve(solver, addends, partitioned));
+    }
 
+    /**
+     * 使用借用的求解器建模并求解
+     *
+     * @param solver      从求解器池中借用的求解器，已经被清理过
+     * @param addends     加数集合
+     * @param partitioned 被划分数
+     * @return 划分结果，不存在则返回 null
+     */
+    private ArrayList<PartitionData> solve(MPSolver solver, Map<Long, Long> addends, long partitioned) {
         // 将加数和对应总数拆分到两个不同的数组中，并按加数大小升序排列
         var orderedAddends = new long[addends.size()];
         var orderedAddendCounts = new long[addends.size()];
         MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
 
+        // 确定加数种类的最大数量和划分的最大数量，划分最大数量一定不超过所有加数数量之和
+        final int maxAddendKinds = addends.size();
+        final int maxPartitions = formulation == Formulation.COMPACT
+                ? compactMaxPartitions(orderedAddends, orderedAddendCounts, partitioned)
+                : addends.values().stream().mapToInt(Long::intValue).sum();
+
         // 定义加数决策变量， 即每个划分中该加数使用的数量，每个加数决策变量的上限必定不能超过当前加数的总数
+        // 紧凑模型中同时不能超过单个划分能容纳的数量
         MPVariable[][] addendVariables = new MPVariable[maxAddendKinds][maxPartitions];
         for (int i = 0; i < maxAddendKinds; i++) {
+            var upperBound = formulation == Formulation.COMPACT
+                    ? Math.min(orderedAddendCounts[i], partitioned / orderedAddends[i])
+                    : orderedAddendCounts[i];
             for (int j = 0; j < maxPartitions; j++) {
-                addendVariables[i][j] = solver.makeIntVar(0, orderedAddendCounts[i], StringUtils.join("a", i, "_", j));
+                addendVariables[i][j] = solver.makeIntVar(0, upperBound, StringUtils.join("a", i, "_", j));
             }
         }
 
@@ -99,6 +149,15 @@ public class IntegerProgrammingMaxPartitions implements MaxPartitions {
             }
         }
 
+        // 紧凑模型中，划分按编号顺序存在，即 p(j) - p(j+1) ∈ [0, 1]，避免求解器在等价的交换方案之间重复分支
+        if (formulation == Formulation.COMPACT) {
+            for (int j = 0; j + 1 < maxPartitions; j++) {
+                var constraint = solver.makeConstraint(0, 1, "sc" + j);
+                constraint.setCoefficient(partitionVariables[j], 1);
+                constraint.setCoefficient(partitionVariables[j + 1], -1);
+            }
+        }
+
         // 设定优化目标，即方案总数最大化
         MPObjective objective = solver.objective();
         for (int j = 0; j < maxPartitions; j++) {
@@ -127,4 +186,22 @@ public class IntegerProgrammingMaxPartitions implements MaxPartitions {
         }
         return null;
     }
+
+    /**
+     * 紧凑模型中划分数量的上限：每个划分至少使用一个加数，并且恰好消耗 partitioned 的加数之和
+     *
+     * @param orderedAddends      升序排列的加数
+     * @param orderedAddendCounts 加数的数量
+     * @param partitioned         被划分数
+     * @return 划分数量的上限，即 min(∑c(i), ⌊∑a(i)c(i) / N⌋)
+     */
+    private static int compactMaxPartitions(long[] orderedAddends, long[] orderedAddendCounts, long partitioned) {
+        long countSum = 0;
+        long valueSum = 0;
+        for (int i = 0; i < orderedAddends.length; i++) {
+            countSum += orderedAddendCounts[i];
+            valueSum += orderedAddends[i] * orderedAddendCounts[i];
+        }
+        return (int) Math.min(countSum, valueSum / partitioned);
+    }
 }
@@ -0,0 +1,125 @@
+package dev.carbonshow.algorithm.partition;
+
+import com.google.ortools.linearsolver.MPSolver;
+import dev.carbonshow.algorithm.NativeLibraries;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 固定容量的 {@link MPSolver} 对象池。MPSolver 本身不是线程安全的，并且每次创建都需要初始化 native 求解器，
+ * 因此求解器创建之后反复使用，多个线程通过 {@link #execute(Function)} 借用，用完后清理并归还。
+ * <p>
+ * 构造时不做任何 native 操作，求解器在第一次被借用且没有空闲求解器时才创建，最多创建 size 个，
+ * native library 也在此时通过 {@link NativeLibraries#ensureLoaded()} 加载（通常已经被提前预加载）。
+ * 池中没有空闲求解器且数量已达上限时，调用方会阻塞等待，所以池的大小同时也限制了并发求解的数量。
+ */
+public class MPSolverPool {
+    // 空闲的求解器
+    private final ArrayBlockingQueue<MPSolver> idleSolvers;
+
+    // 求解器类型
+    private final String solverId;
+
+    // 求解器的总数
+    private final int size;
+
+    // 已经创建的求解器数量，不超过 size
+    private final AtomicInteger created = new AtomicInteger();
+
+    /**
+     * 创建对象池，求解器在借用时按需创建
+     *
+     * @param solverId 求解器类型，比如 SCIP、GLOP，参见 {@link MPSolver#createSolver(String)}
+     * @param size     求解器的数量，即最大并发数
+     */
+    public MPSolverPool(String solverId, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("solver pool size must be positive: " + size);
+        }
+
+        this.solverId = solverId;
+        this.size = size;
+        idleSolvers = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * 借用一个求解器执行任务，任务结束后无论成功与否都会归还。借用时求解器已经被清理，不包含之前的模型
+     *
+     * @param task 使用求解器建模并求解的任务
+     * @param <T>  任务结果类型
+     * @return 任务结果
+     */
+    public <T> T execute(Function<MPSolver, T> task) {
+        var solver = acquire();
+        try {
+            return task.apply(solver);
+        } finally {
+            release(solver);
+        }
+    }
+
+    /**
+     * 借用一个求解器。没有空闲求解器时，数量未达上限则创建新的求解器，否则阻塞等待
+     *
+     * @return 清理过的求解器，使用完毕后必须调用 {@link #release(MPSolver)} 归还
+     */
+    public MPSolver acquire() {
+        var solver = idleSolvers.poll();
+        if (solver != null) {
+            return solver;
+        }
+
+        // 抢占一个创建名额，失败则说明所有求解器都已创建，等待其他线程归还
+        int count;
+        while ((count = created.get()) < size) {
+            if (created.compareAndSet(count, count + 1)) {
+                return createSolver();
+            }
+        }
+
+        try {
+            return idleSolvers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for solver", e);
+        }
+    }
+
+    /**
+     * 创建新的求解器，失败时归还创建名额
+     */
+    private MPSolver createSolver() {
+        MPSolver solver = null;
+        try {
+            NativeLibraries.ensureLoaded();
+            solver = MPSolver.createSolver(solverId);
+        } finally {
+            if (solver == null) {
+                created.decrementAndGet();
+            }
+        }
+        if (solver == null) {
+            throw new RuntimeException("fail to create " + solverId + " solver for pool");
+        }
+        return solver;
+    }
+
+    /**
+     * 清理求解器中的模型并归还
+     *
+     * @param solver 通过 {@link #acquire()} 借用的求解器
+     */
+    public void release(MPSolver solver) {
+        solver.clear();
+        idleSolvers.add(solver);
+    }
+
+    /**
+     * 求解器的总数
+     */
+    public int size() {
+        return size;
+    }
+}
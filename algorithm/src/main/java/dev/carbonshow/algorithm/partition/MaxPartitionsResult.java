@@ -0,0 +1,22 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.ArrayList;
+
+/**
+ * 带有最优性信息的最大划分结果
+ *
+ * @param partitions 划分数据列表，包含每个划分方案的组成及其实施次数
+ * @param objective  实际得到的划分实例总数
+ * @param bound      划分实例总数的上界，求得最优解时和 objective 相等
+ * @param removedPlans 求解之前被 {@link PartitionPlanPruner} 去掉的划分方案数量，这些方案仍然出现在 partitions 中，实施次数为 0
+ */
+public record MaxPartitionsResult(ArrayList<PartitionData> partitions, long objective, long bound, int removedPlans) {
+  /**
+   * 相对最优间隙，即 (bound - objective) / bound，为 0 表示结果一定是最优解
+   *
+   * @return 取值范围 [0, 1]，上界为 0 时返回 0
+   */
+  public double gap() {
+    return bound <= 0 ? 0 : (double) (bound - objective) / bound;
+  }
+}
@@ -0,0 +1,116 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.function.Predicate;
+
+/**
+ * 整数划分的附加约束，比如 “最多由 k 个加数组成”、“每个加数最多使用 c(i) 次”，以及任意的自定义判断。
+ * <p>
+ * 最大加数数量和每个加数的使用上限会在枚举和计数的过程中直接用于剪枝，不满足的分支不会被展开；
+ * 自定义判断只能在得到完整的划分方案之后执行，因此只用于过滤，且会使计数退化为逐个枚举。
+ * <p>
+ * 对象创建后不可变，{@code with*} 方法均返回新的对象，可以在多个线程之间共享。
+ */
+public final class PartitionConstraints {
+
+    // 没有任何约束
+    private static final PartitionConstraints NONE = new PartitionConstraints(Long.MAX_VALUE, null, null);
+
+    // 划分方案中加数的最大数量
+    private final long maxParts;
+
+    // 每个加数的最大使用次数，和升序排列的加数集合一一对应，为 null 表示不限制
+    private final long[] maxMultiplicities;
+
+    // 自定义判断，参数是各加数的使用次数，为 null 表示不限制
+    private final Predicate<long[]> predicate;
+
+    private PartitionConstraints(long maxParts, long[] maxMultiplicities, Predicate<long[]> predicate) {
+        this.maxParts = maxParts;
+        this.maxMultiplicities = maxMultiplicities;
+        this.predicate = predicate;
+    }
+
+    /**
+     * 不包含任何约束，在此基础上通过 {@code with*} 方法添加约束
+     */
+    public static PartitionConstraints none() {
+        return NONE;
+    }
+
+    /**
+     * @param maxParts 划分方案中加数的最大数量
+     * @return 新的约束对象
+     * @throws IllegalArgumentException maxParts 为负数
+     */
+    public PartitionConstraints withMaxParts(long maxParts) {
+        if (maxParts < 0) {
+            throw new IllegalArgumentException("maxParts must not be negative: " + maxParts);
+        }
+        return new PartitionConstraints(maxParts, maxMultiplicities, predicate);
+    }
+
+    /**
+     * @param maxMultiplicities 每个加数的最大使用次数，和升序排列的加数集合一一对应。数组会被拷贝
+     * @return 新的约束对象
+     * @throws IllegalArgumentException 存在负数的使用上限
+     */
+    public PartitionConstraints withMaxMultiplicities(long... maxMultiplicities) {
+        for (var cap : maxMultiplicities) {
+            if (cap < 0) {
+                throw new IllegalArgumentException("max multiplicity must not be negative: " + cap);
+            }
+        }
+        return new PartitionConstraints(maxParts, maxMultiplicities.clone(), predicate);
+    }
+
+    /**
+     * @param predicate 自定义判断，参数是各加数的使用次数，与加数集合一一对应，数组会被复用，不能保留或修改。
+     *                  多次调用时各判断之间是 “与” 的关系
+     * @return 新的约束对象
+     */
+    public PartitionConstraints withPredicate(Predicate<long[]> predicate) {
+        return new PartitionConstraints(maxParts, maxMultiplicities,
+                this.predicate == null ? predicate : this.predicate.and(predicate));
+    }
+
+    /**
+     * 划分方案中加数的最大数量，不限制时为 {@link Long#MAX_VALUE}
+     */
+    public long maxParts() {
+        return maxParts;
+    }
+
+    /**
+     * 第 i 个加数的最大使用次数，不限制时为 {@link Long#MAX_VALUE}
+     *
+     * @param addendIndex 加数在升序排列的加数集合中的下标
+     * @throws IllegalArgumentException 设置了使用上限，但是下标超出了范围
+     */
+    public long maxMultiplicity(int addendIndex) {
+        if (maxMultiplicities == null) {
+            return Long.MAX_VALUE;
+        }
+        if (addendIndex >= maxMultiplicities.length) {
+            throw new IllegalArgumentException("no max multiplicity for addend index " + addendIndex
+                    + ", only " + maxMultiplicities.length + " given");
+        }
+        return maxMultiplicities[addendIndex];
+    }
+
+    /**
+     * 是否包含自定义判断，没有时可以不经枚举直接计数
+     */
+    public boolean hasPredicate() {
+        return predicate != null;
+    }
+
+    /**
+     * 对完整的划分方案执行自定义判断
+     *
+     * @param counts 各加数的使用次数
+     * @return 没有自定义判断或者判断通过时返回 true
+     */
+    public boolean test(long[] counts) {
+        return predicate == null || predicate.test(counts);
+    }
+}
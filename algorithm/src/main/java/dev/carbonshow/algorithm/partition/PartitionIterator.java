@@ -0,0 +1,194 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 惰性枚举整数划分方案的迭代器。和递归实现的遍历顺序完全相同：从最大的加数开始，优先尝试更多的使用次数。
+ * <p>
+ * 递归中的 “包含/不包含” 分支被改写为显式的栈：栈的第 i 层对应第 i 个加数，层上保存该加数当前的使用次数，
+ * 以及分配之前剩余的待划分值。每次 {@link #next()} 只会从上一个划分方案回溯到最近一个还能减少使用次数的层，然后重新向下填充，
+ * 因此不需要物化所有划分方案，调用方可以随时停止，或者边枚举边过滤。
+ * <p>
+ * 通过 {@link PartitionConstraints} 可以附加约束：每层的起始使用次数不超过该加数的使用上限和剩余的加数数量；
+ * 每层分配之后，如果更小的加数即使全部用满也凑不出剩余值，或者凑出剩余值至少需要的加数数量超过了上限，
+ * 则整个分支被剪掉，不会向下展开。自定义判断只在得到完整的划分方案时执行。
+ * <p>
+ * <b>注意：</b>每次 {@link #next()} 返回的都是同一个数组，内容会在下一次调用时被覆盖。如果需要保留某个划分方案，调用方需要自行拷贝。
+ * 数组中第 i 个元素表示加数集合中第 i 个加数的使用次数。
+ */
+public class PartitionIterator implements Iterator<long[]> {
+    // 升序排列的加数集合
+    private final long[] addends;
+
+    // 当前划分方案中每个加数的使用次数，同时也是显式栈中每层的状态，所有 next() 调用返回的都是该数组
+    private final long[] counts;
+
+    // remainders[i] 表示为第 i 个加数分配使用次数之前，还剩余的待划分值
+    private final long[] remainders;
+
+    // partsBefore[i] 表示为第 i 个加数分配使用次数之前，已经使用的加数数量
+    private final long[] partsBefore;
+
+    // capacities[i] 表示前 i 个加数在使用上限内最多能凑出的值，用于剪掉无法凑齐剩余值的分支
+    private final long[] capacities;
+
+    // 附加约束
+    private final PartitionConstraints constraints;
+
+    // 当前正在分配使用次数的层，即加数下标。等于加数数量时说明所有分支均已遍历
+    private int level;
+
+    // 是否已经找到了下一个划分方案，但还没有被 next() 取走
+    private boolean prepared = false;
+
+    /**
+     * 创建迭代器，此时并不会进行任何枚举
+     *
+     * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+     * @param partitioned 被划分的正整数
+     */
+    public PartitionIterator(long[] addendSet, long partitioned) {
+        this(addendSet, partitioned, PartitionConstraints.none());
+    }
+
+    /**
+     * 创建带附加约束的迭代器，此时并不会进行任何枚举
+     *
+     * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+     * @param partitioned 被划分的正整数
+     * @param constraints 附加约束，使用上限和加数集合一一对应
+     */
+    public PartitionIterator(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+        addends = addendSet;
+        counts = new long[addendSet.length];
+        remainders = new long[addendSet.length];
+        partsBefore = new long[addendSet.length];
+        this.constraints = constraints;
+
+        // 使用次数不会超过 partitioned / a(i)，因此容量不会超过 M * N，不会溢出
+        capacities = new long[addendSet.length];
+        for (int i = 1; i < addendSet.length; i++) {
+            var usable = Math.min(constraints.maxMultiplicity(i - 1), partitioned / addendSet[i - 1]);
+            capacities[i] = capacities[i - 1] + usable * addendSet[i - 1];
+        }
+
+        level = addendSet.length - 1;
+        if (level >= 0) {
+            pushLevel(level, partitioned, 0);
+        } else {
+            // 没有加数则不存在任何划分方案
+            level = 0;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!prepared) {
+            prepared = advance();
+        }
+        return prepared;
+    }
+
+    /**
+     * 获取下一个划分方案
+     *
+     * @return 各个加数的使用次数，与加数集合一一对应。返回的数组会被复用
+     */
+    @Override
+    public long[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        prepared = false;
+        return counts;
+    }
+
+    /**
+     * 将划分方案从加数使用次数的形式，转换为和 {@link IntegerPartition#solveWithPartitions(long[], long)} 相同的加数列表形式，
+     * 加数按降序排列
+     *
+     * @param addendSet 加数集合，升序排列
+     * @param counts    每个加数的使用次数，与加数集合一一对应
+     * @return 划分方案中的所有加数
+     */
+    public static ArrayList<Long> toAddendList(long[] addendSet, long[] counts) {
+        var partition = new ArrayList<Long>();
+        for (int i = addendSet.length - 1; i >= 0; i--) {
+            for (long c = 0; c < counts[i]; c++) {
+                partition.add(addendSet[i]);
+            }
+        }
+        return partition;
+    }
+
+    /**
+     * 从当前栈状态出发，找到下一个可用的划分方案
+     *
+     * @return true 表示找到，此时 counts 即为划分方案；false 表示所有分支均已遍历
+     */
+    private boolean advance() {
+        while (level < addends.length) {
+            // 当前层尝试更少的使用次数，所有取值都已尝试过则回溯到上一层
+            if (--counts[level] < 0) {
+                level++;
+                continue;
+            }
+
+            var rest = remainders[level] - counts[level] * addends[level];
+            if (!isFeasible(level, rest)) {
+                // 使用次数越少剩余值越大，当前取值不可行，更少的取值同样不可行，直接回溯
+                level++;
+                continue;
+            }
+
+            if (level == 0) {
+                // 所有加数都已分配且恰好凑齐，找到一个划分方案。自定义判断不具有单调性，不满足时只跳过当前方案
+                if (constraints.test(counts)) {
+                    return true;
+                }
+                continue;
+            }
+
+            level--;
+            pushLevel(level, rest, partsBefore[level + 1] + counts[level + 1]);
+        }
+        return false;
+    }
+
+    /**
+     * 进入新的一层，从最大可用的使用次数开始尝试，不超过使用上限和剩余的加数数量。因为 advance 会先递减再使用，所以这里多加 1
+     *
+     * @param newLevel  新的层，即加数下标
+     * @param remainder 分配之前剩余的待划分值
+     * @param parts     分配之前已经使用的加数数量
+     */
+    private void pushLevel(int newLevel, long remainder, long parts) {
+        remainders[newLevel] = remainder;
+        partsBefore[newLevel] = parts;
+        var maxCount = Math.min(remainder / addends[newLevel], constraints.maxMultiplicity(newLevel));
+        counts[newLevel] = Math.min(maxCount, constraints.maxParts() - parts) + 1;
+    }
+
+    /**
+     * 判断在第 level 层分配之后，剩余值能否由更小的加数凑出。最小的加数分配之后剩余值必须恰好为 0；
+     * 否则剩余值不能超过更小加数的容量，且至少需要 ⌈rest / a(level-1)⌉ 个加数，加上已经使用的数量不能超过上限。
+     * 使用次数减少时剩余值增大，两个条件都只会更难满足，因此不可行时可以直接回溯
+     *
+     * @param level 当前层
+     * @param rest  当前层分配之后剩余的待划分值
+     * @return true 表示可以继续向下搜索
+     */
+    private boolean isFeasible(int level, long rest) {
+        if (level == 0) {
+            return rest == 0;
+        }
+        if (rest > capacities[level]) {
+            return false;
+        }
+        var parts = partsBefore[level] + counts[level];
+        var smaller = addends[level - 1];
+        return (rest + smaller - 1) / smaller <= constraints.maxParts() - parts;
+    }
+}
@@ -0,0 +1,151 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * 在整数规划之前去掉不可能被使用的划分方案，减少决策变量的数量：
+ * <ul>
+ *     <li>不可行：某个加数的使用次数超过了该加数的总数，这样的方案实施次数只能为 0</li>
+ *     <li>被支配：存在另一个方案，每个加数的使用次数都不超过它。两者对目标的贡献都是 1，用另一个方案替换后结果不会变差。
+ *     完全相同的方案只保留第一个</li>
+ * </ul>
+ * 动态规划枚举得到的划分方案加数之和都恰好等于被划分数，彼此之间只可能因为重复而互相支配，
+ * 因此只有加数之和不同的方案之间才需要两两比较，常见情况下剪枝的开销和方案数量成线性关系。
+ */
+public final class PartitionPlanPruner {
+
+    private PartitionPlanPruner() {
+    }
+
+    /**
+     * 剪枝结果
+     *
+     * @param plans           保留的划分方案
+     * @param originalIndices 保留的每个划分方案在原始方案集合中的下标
+     * @param removedInfeasible 因为不可行而去掉的方案数量
+     * @param removedDominated  因为被支配或者重复而去掉的方案数量
+     */
+    public record Result(PartitionPlans plans, int[] originalIndices, int removedInfeasible, int removedDominated) {
+        /**
+         * 去掉的方案总数
+         */
+        public int removed() {
+            return removedInfeasible + removedDominated;
+        }
+
+        /**
+         * 将保留方案的实施次数还原到原始方案集合上，被去掉的方案实施次数为 0
+         *
+         * @param planCounts        保留方案的实施次数
+         * @param originalPlanCount 原始方案的数量
+         * @return 和原始方案集合一一对应的实施次数
+         */
+        public long[] expand(long[] planCounts, int originalPlanCount) {
+            var expanded = new long[originalPlanCount];
+            for (int p = 0; p < originalIndices.length; p++) {
+                expanded[originalIndices[p]] = planCounts[p];
+            }
+            return expanded;
+        }
+    }
+
+    /**
+     * 去掉不可行和被支配的划分方案
+     *
+     * @param addendCounts 加数的数量，和划分方案中升序排列的加数一一对应
+     * @param plans        划分方案
+     * @return 剪枝结果，保留的方案维持原有的相对顺序
+     */
+    public static Result prune(long[] addendCounts, PartitionPlans plans) {
+        final int kinds = plans.addendKinds();
+        final int planCount = plans.planCount();
+
+        // 第一轮：去掉不可行和重复的方案，同时计算加数之和
+        var candidates = new int[planCount];
+        var sums = new long[planCount];
+        var seen = new HashSet<PlanKey>();
+        int candidateCount = 0;
+        int removedInfeasible = 0;
+        int duplicateCount = 0;
+        boolean uniformSum = true;
+        for (int p = 0; p < planCount; p++) {
+            var counts = new long[kinds];
+            long sum = 0;
+            boolean feasible = true;
+            for (int i = 0; i < kinds; i++) {
+                counts[i] = plans.multiplicity(p, i);
+                feasible &= counts[i] <= addendCounts[i];
+                sum += counts[i] * plans.addends()[i];
+            }
+
+            if (!feasible) {
+                removedInfeasible++;
+            } else if (!seen.add(new PlanKey(counts))) {
+                duplicateCount++;
+            } else {
+                sums[candidateCount] = sum;
+                uniformSum &= sum == sums[0];
+                candidates[candidateCount++] = p;
+            }
+        }
+
+        // 第二轮：只有加数之和更小的方案才可能严格支配当前方案
+        var dominated = new boolean[candidateCount];
+        int dominatedCount = 0;
+        if (!uniformSum) {
+            for (int x = 0; x < candidateCount; x++) {
+                for (int y = 0; y < candidateCount && !dominated[x]; y++) {
+                    if (sums[y] < sums[x] && !dominated[y] && covers(plans, candidates[x], candidates[y])) {
+                        dominated[x] = true;
+                        dominatedCount++;
+                    }
+                }
+            }
+        }
+
+        var kept = new PartitionPlans(plans.addends());
+        var originalIndices = new int[candidateCount - dominatedCount];
+        var counts = new long[kinds];
+        int keptCount = 0;
+        for (int x = 0; x < candidateCount; x++) {
+            if (dominated[x]) {
+                continue;
+            }
+            for (int i = 0; i < kinds; i++) {
+                counts[i] = plans.multiplicity(candidates[x], i);
+            }
+            kept.add(counts);
+            originalIndices[keptCount++] = candidates[x];
+        }
+
+        return new Result(kept, originalIndices, removedInfeasible, duplicateCount + dominatedCount);
+    }
+
+    /**
+     * 判断方案 y 每个加数的使用次数都不超过方案 x
+     */
+    private static boolean covers(PartitionPlans plans, int x, int y) {
+        for (int i = 0; i < plans.addendKinds(); i++) {
+            if (plans.multiplicity(y, i) > plans.multiplicity(x, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 用于检测重复方案的键
+     */
+    private record PlanKey(long[] counts) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof PlanKey other && Arrays.equals(counts, other.counts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(counts);
+        }
+    }
+}
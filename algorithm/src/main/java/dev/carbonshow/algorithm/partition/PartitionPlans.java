@@ -0,0 +1,155 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 划分方案集合的紧凑表示。所有划分方案共享同一个升序排列的加数数组，每个方案中各加数的使用次数，
+ * 按 “方案下标 * 加数种类 + 加数下标” 的方式保存在一个扁平的 long 数组中。
+ * <p>
+ * 相比于使用 {@code Map<Long, Long>} 表示单个划分方案，这种方式既没有装箱的 Long 对象，
+ * 也不需要在构建约束条件时对每个方案的每个加数进行哈希查找。
+ * <p>
+ * 对外只提供只读接口，创建后内容不会再发生变化，因此可以在多个线程之间共享。
+ */
+public class PartitionPlans {
+    // 升序排列的加数集合，所有划分方案共享
+    private final long[] addends;
+
+    // 各划分方案中每个加数的使用次数，第 p 个方案第 i 个加数位于 p * addends.length + i
+    private long[] multiplicities;
+
+    // 划分方案的数量
+    private int planCount = 0;
+
+    /**
+     * 创建空的划分方案集合，只在包内通过 {@link #add(long[])} 填充
+     *
+     * @param orderedAddends 升序排列的加数集合
+     */
+    PartitionPlans(long[] orderedAddends) {
+        addends = orderedAddends;
+        multiplicities = new long[orderedAddends.length * 16];
+    }
+
+    /**
+     * 从加数使用次数数组的序列中创建划分方案集合，比如 {@link IntegerPartition#partitionIterator(long[], long)} 的结果
+     *
+     * @param orderedAddends 升序排列的加数集合
+     * @param plans          每个元素是一个划分方案，第 i 个元素表示 orderedAddends[i] 的使用次数。元素会被拷贝，可以复用
+     * @return 划分方案集合
+     */
+    public static PartitionPlans of(long[] orderedAddends, Iterator<long[]> plans) {
+        var result = new PartitionPlans(orderedAddends);
+        while (plans.hasNext()) {
+            result.add(plans.next());
+        }
+        return result;
+    }
+
+    /**
+     * 从 Map 形式的划分方案创建紧凑表示，用于兼容原有的接口
+     *
+     * @param orderedAddends 升序排列的加数集合
+     * @param plans          划分方案列表，每个方案的 key 是加数，value 是加数使用次数
+     * @return 划分方案集合
+     * @throws IllegalArgumentException 划分方案中包含加数集合以外的加数
+     */
+    public static PartitionPlans fromMaps(long[] orderedAddends, List<Map<Long, Long>> plans) {
+        var result = new PartitionPlans(orderedAddends);
+        var counts = new long[orderedAddends.length];
+        for (var plan : plans) {
+            Arrays.fill(counts, 0L);
+            for (var entry : plan.entrySet()) {
+                var addendIndex = Arrays.binarySearch(orderedAddends, entry.getKey());
+                if (addendIndex < 0) {
+                    throw new IllegalArgumentException("addend " + entry.getKey() + " of partition plan is not in addend set");
+                }
+                counts[addendIndex] = entry.getValue();
+            }
+            result.add(counts);
+        }
+        return result;
+    }
+
+    /**
+     * 添加新的划分方案，容量不足时成倍扩容
+     *
+     * @param counts 各加数的使用次数，与加数集合一一对应，内容会被拷贝
+     */
+    void add(long[] counts) {
+        var offset = planCount * addends.length;
+        if (offset + addends.length > multiplicities.length) {
+            multiplicities = Arrays.copyOf(multiplicities, Math.max(multiplicities.length * 2, offset + addends.length));
+        }
+        System.arraycopy(counts, 0, multiplicities, offset, addends.length);
+        planCount++;
+    }
+
+    /**
+     * 升序排列的加数集合，调用方不应修改
+     */
+    public long[] addends() {
+        return addends;
+    }
+
+    /**
+     * 加数的种类数量
+     */
+    public int addendKinds() {
+        return addends.length;
+    }
+
+    /**
+     * 划分方案的数量
+     */
+    public int planCount() {
+        return planCount;
+    }
+
+    /**
+     * 获取指定划分方案中某个加数的使用次数
+     *
+     * @param planIndex   划分方案下标
+     * @param addendIndex 加数在加数集合中的下标
+     * @return 使用次数
+     */
+    public long multiplicity(int planIndex, int addendIndex) {
+        return multiplicities[planIndex * addends.length + addendIndex];
+    }
+
+    /**
+     * 将指定的划分方案转换为 Map 形式，只包含使用次数大于 0 的加数
+     *
+     * @param planIndex 划分方案下标
+     * @return key 是加数，value 是加数使用次数
+     */
+    public Map<Long, Long> toMap(int planIndex) {
+        var plan = new HashMap<Long, Long>();
+        for (int i = 0; i < addends.length; i++) {
+            var count = multiplicity(planIndex, i);
+            if (count > 0) {
+                plan.put(addends[i], count);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 结合每个划分方案的实施次数，转换为划分数据列表
+     *
+     * @param planCounts 每个划分方案的实施次数，与划分方案一一对应
+     * @return 划分数据列表，和划分方案一一对应
+     */
+    public ArrayList<PartitionData> toPartitionData(long[] planCounts) {
+        var result = new ArrayList<PartitionData>(planCount);
+        for (int p = 0; p < planCount; p++) {
+            result.add(new PartitionData(toMap(p), planCounts[p]));
+        }
+        return result;
+    }
+}
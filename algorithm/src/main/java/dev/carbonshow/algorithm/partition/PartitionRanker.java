@@ -0,0 +1,134 @@
+package dev.carbonshow.algorithm.partition;
+
+import java.util.NoSuchElementException;
+import java.util.random.RandomGenerator;
+
+/**
+ * 整数划分方案的排名与反排名。所有划分方案按照 {@link PartitionIterator} 的枚举顺序编号为 [0, count)，
+ * 借助 {@link DPIntegerPartition} 的 dp 计数表，可以在 O(M + N / a(0)) 的时间内完成编号和划分方案之间的相互转换，
+ * 而不需要枚举排在前面的划分方案。
+ * <p>
+ * 枚举顺序可以看成递归树的先序遍历：在状态 (i, v) 下，“再使用一个第 i 个加数” 的分支包含 dp[i][v-a(i)] 个方案，排在前面；
+ * “不再使用第 i 个加数” 的分支包含 dp[i-1][v] 个方案，排在后面。反排名时根据编号落在哪个分支逐层向下走即可，排名是其逆过程。
+ * <p>
+ * 构造时会建立 (M+1) * (N+1) 的计数表，之后只读，可以在多个线程之间共享。划分数量超出 long 范围时结果没有意义。
+ */
+public class PartitionRanker {
+    // 升序排列的加数集合
+    private final long[] addends;
+
+    // 被划分的正整数
+    private final int partitioned;
+
+    // dp[i][j] 表示只使用前 i 个加数划分 j 的方案数量
+    private final long[][] dp;
+
+    /**
+     * 创建排名器，同时构造计数表
+     *
+     * @param addendSet   加数集合，内部不能有重复的元素，且升序排列，必须均为正整数
+     * @param partitioned 被划分的正整数
+     */
+    public PartitionRanker(long[] addendSet, long partitioned) {
+        addends = addendSet;
+        this.partitioned = (int) partitioned;
+        dp = DPIntegerPartition.countingTable(addendSet, partitioned);
+    }
+
+    /**
+     * 划分方案的总数，合法的编号范围为 [0, count)
+     */
+    public long count() {
+        return dp[addends.length][partitioned];
+    }
+
+    /**
+     * 计算划分方案在枚举顺序中的编号
+     *
+     * @param counts 各加数的使用次数，与加数集合一一对应
+     * @return 划分方案的编号
+     * @throws IllegalArgumentException 数组长度和加数集合不一致，使用次数为负数，或者各加数之和不等于被划分的值
+     */
+    public long rank(long[] counts) {
+        if (counts.length != addends.length) {
+            throw new IllegalArgumentException("counts length " + counts.length + " does not match addend kinds " + addends.length);
+        }
+
+        long rank = 0;
+        long value = partitioned;
+        for (int i = addends.length; i > 0; i--) {
+            var count = counts[i - 1];
+            if (count < 0) {
+                throw new IllegalArgumentException("negative count " + count + " of addend " + addends[i - 1]);
+            }
+
+            // 依次走完 count 个 “使用” 分支，最后走 “不使用” 分支时，跳过的是 “使用” 分支下的全部方案
+            value -= count * addends[i - 1];
+            if (value < 0) {
+                break;
+            }
+            var include = value - addends[i - 1];
+            rank += (include < 0 ? 0 : dp[i][(int) include]);
+        }
+
+        if (value != 0) {
+            throw new IllegalArgumentException("counts do not sum to " + partitioned);
+        }
+        return rank;
+    }
+
+    /**
+     * 获取枚举顺序中指定编号的划分方案
+     *
+     * @param rank 划分方案的编号，范围为 [0, count)
+     * @return 各加数的使用次数，与加数集合一一对应
+     */
+    public long[] unrank(long rank) {
+        return unrank(rank, new long[addends.length]);
+    }
+
+    /**
+     * 获取枚举顺序中指定编号的划分方案，结果写入调用方提供的数组，适合在循环中复用
+     *
+     * @param rank   划分方案的编号，范围为 [0, count)
+     * @param counts 长度和加数集合一致的数组，用于保存各加数的使用次数
+     * @return 传入的 counts 数组
+     * @throws IndexOutOfBoundsException 编号超出范围
+     */
+    public long[] unrank(long rank, long[] counts) {
+        if (rank < 0 || rank >= count()) {
+            throw new IndexOutOfBoundsException("rank " + rank + " out of range [0, " + count() + ")");
+        }
+
+        int value = partitioned;
+        for (int i = addends.length; i > 0; i--) {
+            var addend = (int) addends[i - 1];
+            long count = 0;
+            // 编号落在 “使用” 分支内就继续使用当前加数，否则跳过该分支的全部方案，进入更小的加数
+            while (value >= addend && rank < dp[i][value - addend]) {
+                value -= addend;
+                count++;
+            }
+            if (value >= addend) {
+                rank -= dp[i][value - addend];
+            }
+            counts[i - 1] = count;
+        }
+        return counts;
+    }
+
+    /**
+     * 均匀随机地抽取一个划分方案
+     *
+     * @param random 随机数生成器
+     * @return 各加数的使用次数，与加数集合一一对应
+     * @throws NoSuchElementException 不存在任何划分方案
+     */
+    public long[] sample(RandomGenerator random) {
+        var total = count();
+        if (total <= 0) {
+            throw new NoSuchElementException("no partition of " + partitioned);
+        }
+        return unrank(random.nextLong(total));
+    }
+}
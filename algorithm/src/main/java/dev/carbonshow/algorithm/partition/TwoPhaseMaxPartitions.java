@@ -14,11 +14,30 @@ public interface TwoPhaseMaxPartitions extends MaxPartitions {
 
     /**
      * 新增接口，在给定划分方案的前提下，对加数集合进行拆分。
+     * 这是基于 Map 的兼容接口，内部转换为 {@link PartitionPlans} 后调用紧凑形式的接口。
      *
      * @param addends 加数集合，key 是加数，value 是加数的数量
      * @param partitioned 被划分数，划分后的每个实例中包含若干加数，这些加数的和必须等于该值
      * @param partitionPlans 划分方案
-     * @return 返回划分的最终结果
+     * @return 返回划分的最终结果，不存在则返回 null
      */
-    ArrayList<PartitionData> solveWithPartitionPlan(Map<Long, Long> addends, long partitioned, ArrayList<Map<Long, Long>> partitionPlans);
+    default ArrayList<PartitionData> solveWithPartitionPlan(Map<Long, Long> addends, long partitioned, ArrayList<Map<Long, Long>> partitionPlans) {
+        var orderedAddends = new long[addends.size()];
+        var orderedAddendCounts = new long[addends.size()];
+        MaxPartitionsUtils.addendsToArray(addends, orderedAddends, orderedAddendCounts);
+
+        var plans = PartitionPlans.fromMaps(orderedAddends, partitionPlans);
+        var planCounts = solveWithPartitionPlan(orderedAddendCounts, partitioned, plans);
+        return planCounts == null ? null : plans.toPartitionData(planCounts);
+    }
+
+    /**
+     * 在给定划分方案的前提下，对加数集合进行拆分。加数和划分方案均使用紧凑的数组形式表示，避免装箱和哈希查找。
+     *
+     * @param orderedAddendCounts 加数的数量，和 partitionPlans 中升序排列的加数一一对应
+     * @param partitioned 被划分数，划分后的每个实例中包含若干加数，这些加数的和必须等于该值
+     * @param partitionPlans 划分方案
+     * @return 每个划分方案的实施次数，和 partitionPlans 中的方案一一对应；不存在则返回 null
+     */
+    long[] solveWithPartitionPlan(long[] orderedAddendCounts, long partitioned, PartitionPlans partitionPlans);
 }
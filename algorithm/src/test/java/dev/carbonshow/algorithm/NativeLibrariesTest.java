@@ -0,0 +1,27 @@
+package dev.carbonshow.algorithm;
+
+import com.google.ortools.linearsolver.MPSolver;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NativeLibrariesTest {
+
+    @Tag("native")
+    @Test
+    void preloadOnce() {
+        // 多次预加载返回同一个结果，加载耗时只记录一次
+        var preload = NativeLibraries.preloadAsync();
+        assertSame(preload, NativeLibraries.preloadAsync());
+        var loadTime = preload.join();
+
+        assertTrue(NativeLibraries.isLoaded());
+        assertEquals(NativeLibraries.loadTime().orElseThrow(), loadTime);
+
+        // 加载之后的调用不再产生任何加载
+        NativeLibraries.ensureLoaded();
+        assertEquals(NativeLibraries.loadTime().orElseThrow(), loadTime);
+        assertNotNull(MPSolver.createSolver("GLOP"));
+    }
+}
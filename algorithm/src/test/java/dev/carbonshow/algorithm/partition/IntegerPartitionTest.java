@@ -1,10 +1,15 @@
 package dev.carbonshow.algorithm.partition;
 
+import com.google.ortools.sat.LinearExpr;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +32,19 @@ class IntegerPartitionTest {
   // 基于自顶向下动态规划的求解器
   DPIntegerPartition recursiveResolver = new DPIntegerPartition();
 
+  // 基于带缓存的自顶向下动态规划的求解器
+  DPIntegerPartition memoizedResolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.MEMOIZED_RECURSION);
+
+  // 基于滚动数组的自底向上动态规划的求解器
+  DPIntegerPartition rollingResolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.ROLLING_TABLE_FILL);
+
+  // 基于 ForkJoinPool 并行遍历递归树的求解器
+  DPIntegerPartition forkJoinResolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.FORK_JOIN);
+
+  // 基于波前并行填表的求解器，块很小以便在小规模下也能产生并行的单元
+  DPIntegerPartition wavefrontResolver = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.WAVEFRONT_TABLE_FILL,
+    ForkJoinPool.commonPool(), 16);
+
   // 基于 CP-SAT 的求解器
   CPIntegerPartition cpResolver = new CPIntegerPartition();
 
@@ -52,6 +70,33 @@ class IntegerPartitionTest {
     System.out.println("partitions: " + result.size());
   }
 
+  @Tag("partition")
+  @Tag("memoized")
+  @Test
+  public void testPartitionUseMemoized() {
+    assertEquals(memoizedResolver.solve(group3, 3), 3);
+    assertEquals(memoizedResolver.solve(group5, 5), 7);
+    assertEquals(memoizedResolver.solve(group10, 10), 42);
+    assertEquals(memoizedResolver.solve(group100, 100), tableFillResolver.solve(group100, 100));
+    assertEquals(memoizedResolver.solve(coin1, 6), 3);
+    assertEquals(memoizedResolver.solve(coin2, 10), 4);
+    assertEquals(memoizedResolver.solve(coin3, 10), 1);
+  }
+
+  @Tag("partition")
+  @Tag("dynamic-programming")
+  @Test
+  public void testPartitionUseRollingTableFill() {
+    assertEquals(rollingResolver.solve(group3, 3), 3);
+    assertEquals(rollingResolver.solve(group5, 5), 7);
+    assertEquals(rollingResolver.solve(group10, 10), 42);
+    assertEquals(rollingResolver.solve(group100, 100), tableFillResolver.solve(group100, 100));
+
+    // 缓冲区被较大的问题扩容后，较小的问题只使用其中一部分，结果不受残留数据影响
+    assertEquals(rollingResolver.solve(coin1, 6), 3);
+    assertEquals(rollingResolver.solve(coin2, 10), 4);
+    assertEquals(rollingResolver.solve(coin3, 10), 1);
+  }
 
   @Tag("partition")
   @Tag("cp-sat")
@@ -64,6 +109,22 @@ class IntegerPartitionTest {
     }
   }
 
+  @Tag("partition")
+  @Tag("cp-sat")
+  @Test
+  public void testPartitionUseCPWithSideConstraints() {
+    // 没有附加约束时计数由动态规划完成
+    assertEquals(cpResolver.solve(group10, 10), 42);
+
+    // 最多由 2 个加数组成：10, 9+1, 8+2, 7+3, 6+4, 5+5
+    var atMostTwoParts = new CPIntegerPartition((model, counts) -> model.addLessOrEqual(LinearExpr.sum(counts), 2));
+    assertEquals(atMostTwoParts.solve(group10, 10), 6);
+    assertEquals(atMostTwoParts.solveWithPartitions(group10, 10).size(), 6);
+
+    // 再次调用时复用缓存的模型，结果不变
+    assertEquals(atMostTwoParts.solve(group10, 10), 6);
+  }
+
   @Tag("partition100")
   @Tag("cp-sat")
   @Test
@@ -137,4 +198,206 @@ class IntegerPartitionTest {
     }
   }
 
+  @Tag("partition")
+  @Tag("lazy")
+  @Test
+  public void testPartitionIterator() {
+    // 迭代器的遍历顺序和完整结果一致
+    var paths = recursiveResolver.solveWithPartitions(group10, 10L);
+    var iterator = recursiveResolver.partitionIterator(group10, 10L);
+    for (var path : paths) {
+      assertTrue(iterator.hasNext());
+      assertEquals(PartitionIterator.toAddendList(group10, iterator.next()), path);
+    }
+    assertFalse(iterator.hasNext());
+
+    // 不存在划分方案
+    assertFalse(recursiveResolver.partitionIterator(coin1, 1L).hasNext());
+
+    // 可以提前停止，不需要枚举 100 的全部划分
+    var firstTen = recursiveResolver.partitionStream(group100, 100L).limit(10).map(long[]::clone).toList();
+    assertEquals(firstTen.size(), 10);
+    assertEquals(firstTen.get(0)[99], 1L);
+
+    // 边枚举边过滤：只包含 1 和 2 的划分
+    var onesAndTwos = recursiveResolver.partitionStream(group10, 10L)
+      .filter(counts -> Arrays.stream(counts, 2, counts.length).allMatch(count -> count == 0))
+      .count();
+    assertEquals(onesAndTwos, 6);
+  }
+
+  @Tag("partition")
+  @Tag("constrained")
+  @Test
+  public void testPartitionWithConstraints() {
+    // 最多由 3 个加数组成
+    var atMostThreeParts = PartitionConstraints.none().withMaxParts(3);
+    assertEquals(recursiveResolver.solve(group10, 10, atMostThreeParts), 14);
+    var paths = recursiveResolver.solveWithPartitions(group10, 10L, atMostThreeParts);
+    assertEquals(paths.size(), 14);
+    assertTrue(paths.stream().allMatch(path -> path.size() <= 3));
+
+    // 加数 4 最多使用 1 次，去掉 4+4+2 和 4+4+1+1
+    var caps = new long[group10.length];
+    Arrays.fill(caps, Long.MAX_VALUE);
+    caps[3] = 1;
+    var atMostOneFour = PartitionConstraints.none().withMaxMultiplicities(caps);
+    assertEquals(recursiveResolver.solve(group10, 10, atMostOneFour), 40);
+    assertEquals(recursiveResolver.partitionPlans(group10, 10L, atMostOneFour).planCount(), 40);
+
+    // 自定义判断：不包含 1，此时通过枚举计数
+    var withoutOnes = atMostThreeParts.withPredicate(counts -> counts[0] == 0);
+    assertEquals(recursiveResolver.solve(group10, 10, withoutOnes), 9);
+
+    // 剪枝的结果和事后过滤一致，顺序也相同
+    var filtered = recursiveResolver.partitionStream(group10, 40L)
+      .filter(counts -> Arrays.stream(counts).sum() <= 6)
+      .map(counts -> PartitionIterator.toAddendList(group10, counts))
+      .toList();
+    assertEquals(recursiveResolver.solveWithPartitions(group10, 40L, PartitionConstraints.none().withMaxParts(6)), filtered);
+
+    // 没有约束时和原有的计数一致
+    assertEquals(recursiveResolver.solve(group100, 100, PartitionConstraints.none()), tableFillResolver.solve(group100, 100));
+    assertEquals(recursiveResolver.solve(coin1, 1, PartitionConstraints.none()), 0);
+
+    // 加数数量没有上限时只保留一维状态，很大的被划分数也不需要 O(K*N) 的内存
+    assertEquals(recursiveResolver.solve(new long[]{1}, 100_000, PartitionConstraints.none()), 1);
+
+    // CP 的附加约束和 PartitionConstraints 同时生效：不包含 1 时 5 只有 5 和 3+2 两种划分
+    var withoutOnesCP = new CPIntegerPartition((model, counts) -> model.addEquality(counts[0], 0));
+    assertEquals(withoutOnesCP.solve(group5, 5, PartitionConstraints.none()), 2);
+    assertEquals(withoutOnesCP.solve(group5, 5, PartitionConstraints.none().withMaxParts(1)), 1);
+    assertEquals(withoutOnesCP.partitionStream(group5, 5L).count(), 2);
+  }
+
+  @Tag("partition")
+  @Tag("fork-join")
+  @Test
+  public void testPartitionUseForkJoin() {
+    assertEquals(forkJoinResolver.solve(group10, 10), 42);
+    assertEquals(forkJoinResolver.solve(coin2, 10), 4);
+    assertEquals(forkJoinResolver.solve(coin1, 1), 0);
+
+    // 并行枚举的结果和顺序一致
+    assertEquals(forkJoinResolver.solveWithPartitions(group10, 10L), recursiveResolver.solveWithPartitions(group10, 10L));
+    assertEquals(forkJoinResolver.solveWithPartitions(coin2, 10L), recursiveResolver.solveWithPartitions(coin2, 10L));
+    assertEquals(forkJoinResolver.solve(group100, 100), tableFillResolver.solve(group100, 100));
+
+    // 5604 个划分方案超过叶子任务的阈值，会按照最大加数的使用次数拆分为多个任务
+    var group30 = LongStream.rangeClosed(1, 30).toArray();
+    var pool = new ForkJoinPool(4);
+    try {
+      var parallel = new DPIntegerPartition(DPIntegerPartition.DPImplementMethod.FORK_JOIN, pool);
+      assertEquals(parallel.solveWithPartitions(group30, 30L), recursiveResolver.solveWithPartitions(group30, 30L));
+      assertEquals(parallel.solveWithPartitions(coin2, 40L), recursiveResolver.solveWithPartitions(coin2, 40L));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Tag("partition")
+  @Tag("wavefront")
+  @Test
+  public void testPartitionUseWavefront() {
+    assertEquals(wavefrontResolver.solve(group10, 10), 42);
+    assertEquals(wavefrontResolver.solve(coin2, 10), 4);
+    assertEquals(wavefrontResolver.solve(coin1, 1), 0);
+    assertEquals(wavefrontResolver.solve(group100, 100), tableFillResolver.solve(group100, 100));
+
+    // 1000 的划分数已经溢出，溢出后的结果依然和顺序实现一致
+    var group1000 = LongStream.rangeClosed(1, 1000).toArray();
+    assertEquals(wavefrontResolver.solve(group1000, 1000), tableFillResolver.solve(group1000, 1000));
+
+    // 取模计数，100 的划分数 190569292 小于模数
+    assertEquals(wavefrontResolver.solveModulo(group100, 100, DPIntegerPartition.DEFAULT_MODULUS), 190569292L);
+    assertEquals(wavefrontResolver.solveModulo(group1000, 1000, DPIntegerPartition.DEFAULT_MODULUS),
+      rollingResolver.solveModulo(group1000, 1000, DPIntegerPartition.DEFAULT_MODULUS));
+    assertThrows(IllegalArgumentException.class, () -> wavefrontResolver.solveModulo(group10, 10, 0));
+  }
+
+  @Tag("partition")
+  @Tag("rank")
+  @Test
+  public void testPartitionRanker() {
+    // 编号和迭代器的遍历顺序一致
+    var ranker = new PartitionRanker(coin2, 30L);
+    var iterator = recursiveResolver.partitionIterator(coin2, 30L);
+    long rank = 0;
+    while (iterator.hasNext()) {
+      var counts = iterator.next();
+      assertEquals(ranker.rank(counts), rank);
+      assertArrayEquals(ranker.unrank(rank), counts);
+      rank++;
+    }
+    assertEquals(ranker.count(), rank);
+
+    // 不需要枚举就可以直接访问 100 的第 k 个划分
+    var ranker100 = new PartitionRanker(group100, 100L);
+    assertEquals(ranker100.count(), tableFillResolver.solve(group100, 100));
+    assertEquals(ranker100.rank(ranker100.unrank(123456789L)), 123456789L);
+    assertEquals(ranker100.unrank(0)[99], 1L);
+    assertEquals(ranker100.unrank(ranker100.count() - 1)[0], 100L);
+
+    // 随机抽样得到的一定是合法的划分
+    var random = new Random(42);
+    for (int i = 0; i < 100; i++) {
+      var counts = ranker100.sample(random);
+      long sum = 0;
+      for (int j = 0; j < counts.length; j++) {
+        sum += counts[j] * group100[j];
+      }
+      assertEquals(sum, 100L);
+    }
+
+    assertThrows(IllegalArgumentException.class, () -> ranker.rank(new long[]{1, 0, 0, 0, 0}));
+    assertThrows(IndexOutOfBoundsException.class, () -> ranker.unrank(ranker.count()));
+    assertThrows(java.util.NoSuchElementException.class, () -> new PartitionRanker(coin1, 1L).sample(random));
+  }
+
+  @Tag("partition")
+  @Tag("cache")
+  @Test
+  public void testCachedPartition() {
+    var cached = new CachedIntegerPartition(recursiveResolver, 2);
+
+    // 第一次未命中，第二次命中，结果和被装饰的实现一致
+    assertEquals(cached.solve(group10, 10), 42);
+    assertEquals(cached.solve(group10.clone(), 10), 42);
+    assertEquals(cached.missCount(), 1);
+    assertEquals(cached.hitCount(), 1);
+
+    // 返回的划分方案是拷贝，修改不会影响缓存
+    var partitions = cached.solveWithPartitions(group5, 5L);
+    assertEquals(partitions, recursiveResolver.solveWithPartitions(group5, 5L));
+    partitions.clear();
+    assertEquals(cached.solveWithPartitions(group5, 5L).size(), 7);
+    assertEquals(cached.hitCount(), 2);
+
+    // 超出容量时淘汰最久未访问的条目
+    var plans = cached.partitionPlans(group10, 10L);
+    assertEquals(plans.planCount(), 42);
+    assertEquals(cached.size(), 2);
+    assertEquals(cached.solve(group10, 10), 42);
+    assertEquals(cached.missCount(), 4);
+    assertSame(cached.partitionPlans(group10, 10L), plans);
+
+    // 惰性枚举和带约束的方法转发给被装饰的实现，而不是退回到接口的默认实现
+    var onlyPlan = new long[]{0, 0, 1};
+    var delegate = new DPIntegerPartition() {
+      @Override
+      public Iterator<long[]> partitionIterator(long[] addendSet, long partitioned) {
+        return List.of(onlyPlan).iterator();
+      }
+
+      @Override
+      public Iterator<long[]> partitionIterator(long[] addendSet, long partitioned, PartitionConstraints constraints) {
+        return List.of(onlyPlan).iterator();
+      }
+    };
+    var forwarding = new CachedIntegerPartition(delegate);
+    assertEquals(forwarding.partitionStream(group3, 3L).count(), 1);
+    assertSame(forwarding.partitionIterator(group3, 3L).next(), onlyPlan);
+    assertEquals(forwarding.solveWithPartitions(group3, 3L, PartitionConstraints.none().withPredicate(c -> true)).size(), 1);
+    assertEquals(forwarding.partitionPlans(group3, 3L, PartitionConstraints.none()).planCount(), 1);
+  }
 }
@@ -6,6 +6,9 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,6 +40,153 @@ class MaxPartitionsTest {
         }
     }
 
+    @Tag("TwoPhase")
+    @Test
+    void solveWithDensePartitionPlanTwoPhase() {
+        DefaultMaxPartitions solver = new DefaultMaxPartitions();
+        var orderedAddends = new long[]{1L, 2L, 5L};
+        var plans = PartitionPlans.fromMaps(orderedAddends, PARTITION_PLANS);
+        assertEquals(plans.planCount(), PARTITION_PLANS.size());
+        assertEquals(plans.multiplicity(1, 2), 1L);
+        assertEquals(plans.toMap(3), PARTITION_PLANS.get(3));
+
+        var planCounts = solver.solveWithPartitionPlan(new long[]{100L, 40L, 10L}, PARTITIONED, plans);
+        assertNotNull(planCounts);
+        validate(plans.toPartitionData(planCounts));
+    }
+
+    @Tag("TwoPhase")
+    @Test
+    void solveTwoPhaseWithLpRounding() {
+        // 不允许任何间隙时，结果必定是最优解
+        DefaultMaxPartitions exactSolver = new DefaultMaxPartitions(DefaultMaxPartitions.ProgrammingMethod.LP_ROUNDING, 0);
+        var exact = exactSolver.solveWithGap(ADDENDS, PARTITIONED);
+        assertNotNull(exact);
+        assertEquals(exact.gap(), 0.0);
+        validate(exact.partitions());
+
+        // 允许任意间隙时，直接使用取整后的结果，但仍然必须满足加数数量约束
+        DefaultMaxPartitions roundingSolver = new DefaultMaxPartitions(DefaultMaxPartitions.ProgrammingMethod.LP_ROUNDING, 1);
+        var rounded = roundingSolver.solveWithGap(ADDENDS, PARTITIONED);
+        assertNotNull(rounded);
+        assertTrue(rounded.objective() <= rounded.bound());
+        assertEquals(rounded.objective(), PartitionData.totalPartitionsCount(rounded.partitions()));
+        assertTrue(rounded.bound() >= 23);
+        var addendUseCounts = PartitionData.addendsUsedCount(rounded.partitions());
+        for (var entry : addendUseCounts.entrySet()) {
+            assertTrue(entry.getValue() <= ADDENDS.get(entry.getKey()));
+        }
+    }
+
+    @Tag("ColumnGeneration")
+    @Test
+    void solveColumnGeneration() {
+        ColumnGenerationMaxPartitions solver = new ColumnGenerationMaxPartitions();
+        validate(solver.solve(ADDENDS, PARTITIONED));
+    }
+
+    @Tag("ColumnGeneration")
+    @Test
+    void priceColumn() {
+        var addends = new long[]{1L, 2L, 5L};
+        var upperBounds = new long[]{10L, 5L, 2L};
+
+        // 5 的价格最低，最优方案是两个 5
+        assertArrayEquals(ColumnGenerationMaxPartitions.priceColumn(addends, upperBounds, 10, new double[]{0.2, 0.3, 0.1}), new long[]{0, 0, 2});
+        // 1 免费但最多只能使用 3 个，剩余的 7 只能由 2+5 凑出，即 1+1+1+2+5
+        assertArrayEquals(ColumnGenerationMaxPartitions.priceColumn(addends, new long[]{3L, 5L, 2L}, 10, new double[]{0, 0.3, 0.5}), new long[]{3, 1, 1});
+        // 无法凑出
+        assertNull(ColumnGenerationMaxPartitions.priceColumn(new long[]{4L}, new long[]{3L}, 10, new double[]{0}));
+    }
+
+    @Tag("Pruning")
+    @Test
+    void prunePartitionPlans() {
+        var orderedAddends = new long[]{1L, 2L, 5L};
+        var plans = PartitionPlans.fromMaps(orderedAddends, Arrays.asList(
+                Map.of(1L, 6L, 2L, 2L),         // 1 只有 3 个，不可行
+                Map.of(1L, 1L, 2L, 2L, 5L, 1L),
+                Map.of(1L, 1L, 2L, 2L, 5L, 1L), // 重复
+                Map.of(5L, 2L),
+                Map.of(1L, 1L, 5L, 2L)          // 被 (5,2) 支配
+        ));
+        var addendCounts = new long[]{3L, 40L, 10L};
+
+        var pruned = PartitionPlanPruner.prune(addendCounts, plans);
+        assertEquals(pruned.removedInfeasible(), 1);
+        assertEquals(pruned.removedDominated(), 2);
+        assertEquals(pruned.removed(), 3);
+        assertArrayEquals(pruned.originalIndices(), new int[]{1, 3});
+        assertEquals(pruned.plans().toMap(1), Map.of(5L, 2L));
+        assertArrayEquals(pruned.expand(new long[]{3L, 4L}, plans.planCount()), new long[]{0L, 3L, 0L, 4L, 0L});
+
+        // 剪枝不影响最终结果
+        DefaultMaxPartitions solver = new DefaultMaxPartitions();
+        var result = solver.solveWithGap(Map.of(1L, 3L, 2L, 40L, 5L, 10L), PARTITIONED);
+        assertNotNull(result);
+        assertTrue(result.removedPlans() > 0);
+        DefaultMaxPartitions unprunedSolver = new DefaultMaxPartitions(DefaultMaxPartitions.ProgrammingMethod.MIP, 0, false,
+                new MPSolverPool("SCIP", 1), null);
+        var unpruned = unprunedSolver.solveWithGap(Map.of(1L, 3L, 2L, 40L, 5L, 10L), PARTITIONED);
+        assertNotNull(unpruned);
+        assertEquals(unpruned.removedPlans(), 0);
+        assertEquals(result.objective(), unpruned.objective());
+        // 被去掉的方案仍然出现在结果中，实施次数为 0
+        assertEquals(result.partitions().size(), unpruned.partitions().size());
+    }
+
+    @Tag("Incremental")
+    @Test
+    void solveIncrementally() {
+        IncrementalMaxPartitions solver = new IncrementalMaxPartitions();
+        DefaultMaxPartitions referenceSolver = new DefaultMaxPartitions();
+        validate(solver.solve(ADDENDS, PARTITIONED));
+        assertEquals(solver.rebuildCount(), 1);
+
+        // 只有加数数量变化时复用模型，结果和重新建模一致
+        var changedAddends = Map.of(1L, 95L, 2L, 42L, 5L, 7L);
+        var partitions = solver.solve(changedAddends, PARTITIONED);
+        assertNotNull(partitions);
+        assertEquals(solver.rebuildCount(), 1);
+        assertEquals(PartitionData.totalPartitionsCount(partitions),
+                PartitionData.totalPartitionsCount(referenceSolver.solve(changedAddends, PARTITIONED)));
+        for (var entry : PartitionData.addendsUsedCount(partitions).entrySet()) {
+            assertTrue(entry.getValue() <= changedAddends.get(entry.getKey()));
+        }
+
+        // 被划分数变化时重建模型
+        assertNotNull(solver.solve(changedAddends, 5L));
+        assertEquals(solver.rebuildCount(), 2);
+    }
+
+    @Tag("CPSat")
+    @Test
+    void solveCPSat() {
+        CPSatMaxPartitions solver = new CPSatMaxPartitions();
+        var result = solver.solveWithGap(ADDENDS, PARTITIONED);
+        assertNotNull(result);
+        assertEquals(result.gap(), 0.0);
+        validate(result.partitions());
+        validate(solver.solveWithPartitionPlan(ADDENDS, PARTITIONED, PARTITION_PLANS));
+
+        CPSatMaxPartitions oneShotSolver = new CPSatMaxPartitions(CPSatMaxPartitions.Formulation.ONE_SHOT, 4, 10, 0);
+        validate(oneShotSolver.solve(ADDENDS, PARTITIONED));
+    }
+
+    @Tag("DynamicProgramming")
+    @Test
+    void solveDynamicProgramming() {
+        DPMaxPartitions solver = new DPMaxPartitions();
+        validate(solver.solve(ADDENDS, PARTITIONED));
+
+        var partitions = solver.solveWithPartitionPlan(ADDENDS, PARTITIONED, PARTITION_PLANS);
+        validate(partitions);
+
+        // 状态空间超过上限时退回整数规划，结果保持一致
+        DPMaxPartitions fallbackSolver = new DPMaxPartitions(1000);
+        validate(fallbackSolver.solve(ADDENDS, PARTITIONED));
+    }
+
     @Tag("IntegerProgramming")
     @Test
     void solveIntegerProgramming() {
@@ -45,6 +195,33 @@ class MaxPartitionsTest {
         validate(partitions);
     }
 
+    @Tag("IntegerProgramming")
+    @Test
+    void solveIntegerProgrammingFullFormulation() {
+        IntegerProgrammingMaxPartitions solver = new IntegerProgrammingMaxPartitions(IntegerProgrammingMaxPartitions.Formulation.FULL);
+        var partitions = solver.solve(ADDENDS, PARTITIONED);
+        validate(partitions);
+    }
+
+    @Tag("TwoPhase")
+    @Test
+    void solveConcurrentlyWithSolverPool() throws InterruptedException, ExecutionException {
+        // 4 个线程共享 2 个求解器
+        DefaultMaxPartitions solver = new DefaultMaxPartitions(new MPSolverPool("SCIP", 2));
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var futures = new ArrayList<Future<ArrayList<PartitionData>>>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> solver.solve(ADDENDS, PARTITIONED)));
+            }
+            for (var future : futures) {
+                validate(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     // 划分结果的校验逻辑
     private void validate(ArrayList<PartitionData> partitions){
         assertNotNull(partitions);
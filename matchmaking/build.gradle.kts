@@ -1,5 +1,6 @@
 plugins {
   id("java")
+  id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "dev.carbonshow.matchmaking"
@@ -22,11 +23,27 @@ dependencies {
   implementation("org.jdbi:jdbi3-sqlobject:3.45.4")
   implementation(project(":algorithm"))
 
+  jmh("org.openjdk.jmh:jmh-core:1.37")
+  jmh("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+  jmh("org.openjdk.jmh:jmh-generator-bytecode:1.37")
+  jmh("org.openjdk.jol:jol-core:0.17")
 
   testImplementation(platform("org.junit:junit-bom:5.10.0"))
   testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
+// 和 algorithm 模块相同：-PjmhIncludes 选择 benchmark，-PjmhResultTag 标记 JSON 结果文件
+val jmhIncludes = providers.gradleProperty("jmhIncludes").getOrElse("MatchMakingPoolBenchmark")
+val jmhResultTag = providers.gradleProperty("jmhResultTag").getOrElse("latest")
+
+jmh {
+  includes = jmhIncludes.split(",")
+  iterations = 5
+  profilers = listOf("gc")
+  resultFormat = "JSON"
+  resultsFile = layout.buildDirectory.file("results/jmh/results-$jmhResultTag.json")
+}
+
 tasks.register<JavaExec>("matchmaker") {
   mainClass = "dev.carbonshow.matchmaking.MatchMaker"
   classpath = sourceSets.main.get().runtimeClasspath
@@ -0,0 +1,134 @@
+package dev.carbonshow.matchmaking.pool;
+
+import dev.carbonshow.matchmaking.config.MatchUnitTimeVaryingParameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 匹配池 ID 索引的对比：{@link LongObjectHashMap} 和 {@code HashMap<Long, MatchUnit>}，规模从 1 万到 100 万。
+ * <ul>
+ *     <li>build*：从空表开始插入所有 ID，包含扩容</li>
+ *     <li>get*：在满表中依次查找所有 ID</li>
+ *     <li>churn*：满表状态下删除一个已有 ID 并加入一个新 ID，对应匹配池中持续的进入和取消匹配</li>
+ * </ul>
+ * ID 由固定种子随机生成，避免连续 ID 对哈希函数的偏向。配合 gc profiler 的 gc.alloc.rate.norm 可以看到
+ * HashMap 每次操作装箱 Long 和创建节点的内存分配，而 LongObjectHashMap 在 get 和 churn 中没有分配。
+ * <p>
+ * 运行方式：{@code ./gradlew :matchmaking:jmh -PjmhIncludes=LongObjectHashMapBenchmark}
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, warmups = 1)
+public class LongObjectHashMapBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    // 前 size 个 ID 初始位于表中，后 size 个 ID 在 churn 中轮换加入
+    private long[] keys;
+
+    // 所有 ID 共享同一个值，只比较索引结构本身
+    private MatchUnit unit;
+
+    private HashMap<Long, MatchUnit> hashMap;
+    private LongObjectHashMap<MatchUnit> longMap;
+
+    // churn 的当前位置，在 [0, 2 * size) 中循环
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var random = new Random(42);
+        var distinct = new LinkedHashSet<Long>();
+        while (distinct.size() < 2 * size) {
+            distinct.add(random.nextLong() & Long.MAX_VALUE);
+        }
+        keys = distinct.stream().mapToLong(Long::longValue).toArray();
+
+        var parameters = new MatchUnitTimeVaryingParameters(0, 1, 0, new BitSet());
+        unit = new MatchUnit(1, new ArrayList<>(List.of(1L)), 0, new HashMap<>(), parameters);
+
+        hashMap = new HashMap<>();
+        longMap = new LongObjectHashMap<>(MatchUnit[]::new);
+        for (int i = 0; i < size; i++) {
+            hashMap.put(keys[i], unit);
+            longMap.put(keys[i], unit);
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public HashMap<Long, MatchUnit> buildHashMap() {
+        var map = new HashMap<Long, MatchUnit>();
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], unit);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public LongObjectHashMap<MatchUnit> buildLongMap() {
+        var map = new LongObjectHashMap<>(MatchUnit[]::new);
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], unit);
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public int getHashMap() {
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            if (hashMap.get(keys[i]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public int getLongMap() {
+        int found = 0;
+        for (int i = 0; i < size; i++) {
+            if (longMap.get(keys[i]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public MatchUnit churnHashMap() {
+        var removed = hashMap.remove(keys[cursor]);
+        hashMap.put(keys[advance()], unit);
+        return removed;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.Throughput)
+    public MatchUnit churnLongMap() {
+        var removed = longMap.remove(keys[cursor]);
+        longMap.put(keys[advance()], unit);
+        return removed;
+    }
+
+    /**
+     * 前进一步，返回本次加入的 ID 下标。删除的是 cursor，加入的是 size 步之后的 ID，表中始终保持 size 个 ID
+     */
+    private int advance() {
+        var added = cursor + size;
+        cursor = cursor + 1 == keys.length ? 0 : cursor + 1;
+        return added >= keys.length ? added - keys.length : added;
+    }
+}
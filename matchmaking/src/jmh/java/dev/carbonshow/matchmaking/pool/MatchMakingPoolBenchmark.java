@@ -0,0 +1,194 @@
+package dev.carbonshow.matchmaking.pool;
+
+import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+import dev.carbonshow.matchmaking.config.MatchUnitTimeVaryingParameters;
+import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 10 万个匹配单元时，以 ID 为索引保存 MatchUnit 对象的匹配池和列式匹配池 {@link MatchMakingPoolColumnar} 的对比：
+ * <ul>
+ *     <li>scan*：找出段位和实力都落在给定单元可接纳区间内、且对方也能接纳该单元的所有匹配单元，即求解器中最常见的兼容性扫描</li>
+ *     <li>tick*：求解器每个 tick 获取按人数排序的匹配单元，匹配池没有变化时，拷贝并排序和基于快照版本号复用上次排序结果的对比</li>
+ *     <li>build*：从默认容量的空池开始加入所有匹配单元的耗时。gc profiler 的 gc.alloc.rate.norm 是构建过程中的瞬时分配，
+ *     包含每次成倍扩容时各个数组和哈希表的拷贝，并不是匹配池的常驻内存</li>
+ * </ul>
+ * 常驻内存在 setup 中通过 JOL 的 {@link GraphLayout} 统计并打印到输出中：遍历匹配池可达的所有对象，
+ * 减去所有匹配池共享的匹配单元、匹配参数和时变参数配置，剩下的就是匹配池自身结构的大小。
+ * 列式匹配池按照 unitCount 预分配，以 ID 为索引的匹配池从默认容量成倍扩容，数组中包含扩容留下的空闲容量。
+ * 兼容图匹配池 {@link MatchMakingPoolGraph} 在加入时建立边，10 万个单元的边数以千万计，它的开销由 {@link MatchMakingPoolGraphBenchmark} 单独测量。
+ * 运行方式：{@code ./gradlew :matchmaking:jmh -PjmhIncludes=MatchMakingPoolBenchmark}
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, warmups = 1)
+public class MatchMakingPoolBenchmark {
+    private static final MatchMakingCriteria CRITERIA = new MatchMakingCriteria(2, 5, 100, 5, 2);
+
+    @Param({"100000"})
+    private int unitCount;
+
+    private MatchUnit[] matchUnits;
+
+    private MatchMakingPoolBasic mapPool;
+    private MatchMakingPoolColumnar columnarPool;
+
+    // 扫描时作为参照的单元下标
+    private int probe;
+
+    // 上一个 tick 的快照和排序结果
+    private MatchMakingPoolSnapshot sortedSnapshot;
+    private MatchUnit[] sortedUnits;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        var random = new Random(42);
+        var now = 1_700_000_000L;
+        matchUnits = new MatchUnit[unitCount];
+        long userId = 0;
+        for (int i = 0; i < unitCount; i++) {
+            var memberCount = random.nextInt(CRITERIA.userCountPerTeam()) + 1;
+            var members = new ArrayList<>(LongStream.range(userId, userId + memberCount).boxed().toList());
+            userId += memberCount;
+
+            var positions = new BitSet(CRITERIA.maxPositions());
+            for (int p = 0; p < CRITERIA.maxPositions(); p++) {
+                if (random.nextBoolean()) {
+                    positions.set(p);
+                }
+            }
+            var latencies = new HashMap<Integer, Integer>();
+            for (int g = 0; g < CRITERIA.maxRelayGroups(); g++) {
+                latencies.put(g, random.nextInt(999));
+            }
+
+            var parameters = new MatchUnitTimeVaryingParameters(now - random.nextInt(600),
+                    random.nextInt(CRITERIA.maxRank()) + 1, random.nextDouble() * 100, positions);
+            parameters.update(now, TimeVaryingConfig.defaultVal());
+            matchUnits[i] = new MatchUnit(i + 1, members, random.nextDouble(), latencies, parameters);
+        }
+
+        mapPool = new MatchMakingPoolBasic(CRITERIA, "map") {
+        };
+        columnarPool = new MatchMakingPoolColumnar(CRITERIA, "columnar", TimeVaryingConfig.defaultVal(), unitCount);
+        for (var unit : matchUnits) {
+            mapPool.addMatchUnit(unit);
+            columnarPool.addMatchUnit(unit);
+        }
+        probe = unitCount / 2;
+
+        var shared = GraphLayout.parseInstance(matchUnits, CRITERIA, TimeVaryingConfig.defaultVal());
+        System.out.printf("retained bytes for %d units: map pool %d, columnar pool %d%n", unitCount,
+                GraphLayout.parseInstance(mapPool).subtract(shared).totalSize(),
+                GraphLayout.parseInstance(columnarPool).subtract(shared).totalSize());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public int scanMapPool() {
+        return scan(mapPool);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public int scanColumnarPool() {
+        final var pool = columnarPool;
+        final int size = pool.matchUnitCount();
+        final int[] ranks = pool.ranks();
+        final double[] skills = pool.skills();
+        final int[] minRanks = pool.minRanks();
+        final int[] maxRanks = pool.maxRanks();
+        final double[] minSkills = pool.minSkills();
+        final double[] maxSkills = pool.maxSkills();
+
+        final int slot = pool.slotOf(matchUnits[probe].matchUnitId());
+        final int rank = ranks[slot];
+        final double skill = skills[slot];
+        final int minRank = minRanks[slot];
+        final int maxRank = maxRanks[slot];
+        final double minSkill = minSkills[slot];
+        final double maxSkill = maxSkills[slot];
+
+        int compatible = 0;
+        for (int i = 0; i < size; i++) {
+            if (ranks[i] >= minRank && ranks[i] <= maxRank && skills[i] >= minSkill && skills[i] <= maxSkill
+                    && rank >= minRanks[i] && rank <= maxRanks[i] && skill >= minSkills[i] && skill <= maxSkills[i]) {
+                compatible++;
+            }
+        }
+        return compatible;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public MatchUnit[] tickCopyAndSort() {
+        var units = mapPool.matchUnits();
+        Arrays.sort(units, Comparator.comparingInt(MatchUnit::userCount));
+        return units;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public MatchUnit[] tickSnapshot() {
+        var snapshot = mapPool.snapshot();
+        if (!snapshot.sameVersionAs(sortedSnapshot)) {
+            sortedUnits = snapshot.matchUnits();
+            Arrays.sort(sortedUnits, Comparator.comparingInt(MatchUnit::userCount));
+            sortedSnapshot = snapshot;
+        }
+        return sortedUnits;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public MatchMakingPool buildMapPool() {
+        var pool = new MatchMakingPoolBasic(CRITERIA, "map") {
+        };
+        for (var unit : matchUnits) {
+            pool.addMatchUnit(unit);
+        }
+        return pool;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public MatchMakingPool buildColumnarPool() {
+        var pool = new MatchMakingPoolColumnar(CRITERIA, "columnar", TimeVaryingConfig.defaultVal());
+        for (var unit : matchUnits) {
+            pool.addMatchUnit(unit);
+        }
+        return pool;
+    }
+
+    /**
+     * 通过 MatchUnit 对象完成同样的兼容性扫描，每个单元都要经过时变参数对象和两个装箱的 Range
+     */
+    private int scan(MatchMakingPoolBasic pool) {
+        var probeParameters = matchUnits[probe].timeVaryingParameters();
+        var rankRange = probeParameters.getMatchedRankRange();
+        var skillRange = probeParameters.getMatchedSkillRange();
+        int rank = probeParameters.getRank();
+        double skill = probeParameters.getSkill();
+
+        var view = pool.snapshot();
+        int compatible = 0;
+        for (int i = 0; i < view.size(); i++) {
+            var parameters = view.get(i).timeVaryingParameters();
+            if (rankRange.contains(parameters.getRank()) && skillRange.contains(parameters.getSkill())
+                    && parameters.getMatchedRankRange().contains(rank) && parameters.getMatchedSkillRange().contains(skill)) {
+                compatible++;
+            }
+        }
+        return compatible;
+    }
+}
@@ -0,0 +1,136 @@
+package dev.carbonshow.matchmaking.pool;
+
+import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+import dev.carbonshow.matchmaking.config.MatchUnitTimeVaryingParameters;
+import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 多线程写入时 {@link MatchMakingPoolConcurrent} 和用单个锁保护的匹配池的吞吐量对比。
+ * <ul>
+ *     <li>ingest*：所有线程都在写入，每次操作删除一个自己的匹配单元再重新加入，匹配池的大小保持不变</li>
+ *     <li>mixed*：7 个线程写入，1 个线程不断获取快照，对应求解线程和网关线程同时工作；单锁的匹配池在复制数组期间阻塞所有写入</li>
+ * </ul>
+ * 运行方式：{@code ./gradlew :matchmaking:jmh -PjmhIncludes=MatchMakingPoolConcurrentBenchmark}
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, warmups = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class MatchMakingPoolConcurrentBenchmark {
+    private static final MatchMakingCriteria CRITERIA = new MatchMakingCriteria(2, 5, 100, 5, 2);
+
+    // 每个写入线程拥有的匹配单元数量
+    private static final int UNITS_PER_THREAD = 4096;
+
+    // 为写入线程分配互不重叠的 ID
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private MatchMakingPoolConcurrent concurrentPool;
+
+    // 现状：一个普通的匹配池，所有访问都通过同一个锁
+    private MatchMakingPoolBasic lockedPool;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        concurrentPool = new MatchMakingPoolConcurrent(CRITERIA, "concurrent", TimeVaryingConfig.defaultVal());
+        lockedPool = new MatchMakingPoolBasic(CRITERIA, "locked") {
+        };
+    }
+
+    /**
+     * 写入线程的私有数据，初始时所有匹配单元都已经在两个匹配池中
+     */
+    @State(Scope.Thread)
+    public static class Writer {
+        MatchUnit[] units;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup(MatchMakingPoolConcurrentBenchmark benchmark) {
+            var random = new Random(NEXT_ID.get());
+            var firstId = NEXT_ID.getAndAdd(UNITS_PER_THREAD);
+            units = new MatchUnit[UNITS_PER_THREAD];
+            for (int i = 0; i < UNITS_PER_THREAD; i++) {
+                var parameters = new MatchUnitTimeVaryingParameters(0, random.nextInt(CRITERIA.maxRank()) + 1,
+                        random.nextDouble() * 100, new BitSet());
+                units[i] = new MatchUnit(firstId + i, new ArrayList<>(List.of(firstId + i)), random.nextDouble(),
+                        new HashMap<>(), parameters);
+                benchmark.concurrentPool.addMatchUnit(units[i]);
+                synchronized (benchmark.lockedPool) {
+                    benchmark.lockedPool.addMatchUnit(units[i]);
+                }
+            }
+        }
+
+        MatchUnit next() {
+            var unit = units[cursor];
+            cursor = cursor + 1 == units.length ? 0 : cursor + 1;
+            return unit;
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean ingestConcurrent(Writer writer) {
+        return churnConcurrent(writer);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean ingestLocked(Writer writer) {
+        return churnLocked(writer);
+    }
+
+    @Benchmark
+    @Group("mixedConcurrent")
+    @GroupThreads(7)
+    public boolean mixedConcurrentIngest(Writer writer) {
+        return churnConcurrent(writer);
+    }
+
+    @Benchmark
+    @Group("mixedConcurrent")
+    @GroupThreads(1)
+    public MatchMakingPool mixedConcurrentSnapshot() {
+        return concurrentPool.snapshot();
+    }
+
+    @Benchmark
+    @Group("mixedLocked")
+    @GroupThreads(7)
+    public boolean mixedLockedIngest(Writer writer) {
+        return churnLocked(writer);
+    }
+
+    @Benchmark
+    @Group("mixedLocked")
+    @GroupThreads(1)
+    public MatchUnit[] mixedLockedSnapshot() {
+        synchronized (lockedPool) {
+            return lockedPool.matchUnits();
+        }
+    }
+
+    private boolean churnConcurrent(Writer writer) {
+        var unit = writer.next();
+        concurrentPool.removeMatchUnit(unit.matchUnitId());
+        return concurrentPool.addMatchUnit(unit);
+    }
+
+    private boolean churnLocked(Writer writer) {
+        var unit = writer.next();
+        synchronized (lockedPool) {
+            lockedPool.removeMatchUnit(unit.matchUnitId());
+            return lockedPool.addMatchUnit(unit);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dev.carbonshow.matchmaking.pool;
+
+import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+import dev.carbonshow.matchmaking.config.MatchUnitTimeVaryingParameters;
+import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
+import dev.carbonshow.matchmaking.solver.DefaultMatchUnitOperator;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.builder.GraphTypeBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个 tick 维护兼容图的开销，匹配单元的进入时间分布在最近 11 分钟内：
+ * <ul>
+ *     <li>tickIncremental：{@link MatchMakingPoolGraph#update(long)}，只查询放宽之后新覆盖的区间，补充新出现的边</li>
+ *     <li>tickFullRebuild：更新时变参数后重新比较所有匹配单元对并重建所有边，即 O(n²) 的计算</li>
+ * </ul>
+ * 时变参数每 60 秒才会真正更新一次，在此之前的调用直接返回。每个单元上一次更新的时间在 [NOW - 59, NOW] 内均匀错开，
+ * 因此推进 tickSeconds 秒之后，大约 tickSeconds / 60 的单元越过更新间隔、区间放宽，其余单元的区间保持不变：
+ * tickSeconds 为 1 时对应求解器按秒调度，每个 tick 约 1/60 的单元发生变化；为 60 时所有单元的区间同时放宽，是增量维护的最坏情况。
+ * 每次调用前都重新建立处于上一个 tick 状态的匹配池，建立的开销不计入结果。
+ * <p>
+ * 运行方式：{@code ./gradlew :matchmaking:jmh -PjmhIncludes=MatchMakingPoolGraphBenchmark}
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, warmups = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class MatchMakingPoolGraphBenchmark {
+    private static final MatchMakingCriteria CRITERIA = new MatchMakingCriteria(2, 5, 100, 5, 2);
+    private static final TimeVaryingConfig CONFIG = TimeVaryingConfig.defaultVal();
+    private static final long NOW = 1_700_000_000L;
+
+    @Param({"1000", "5000"})
+    private int unitCount;
+
+    @Param({"1", "10", "60"})
+    private int tickSeconds;
+
+    // 匹配单元的基础数据，每次调用前据此重新创建时变参数
+    private long[] enterTimestamps;
+    private long[] lastUpdateTimestamps;
+    private int[] ranks;
+    private double[] skills;
+
+    private final DefaultMatchUnitOperator operator = new DefaultMatchUnitOperator(CRITERIA, CONFIG);
+
+    private MatchMakingPoolGraph pool;
+    private MatchUnit[] units;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        var random = new Random(42);
+        enterTimestamps = new long[unitCount];
+        lastUpdateTimestamps = new long[unitCount];
+        ranks = new int[unitCount];
+        skills = new double[unitCount];
+        for (int i = 0; i < unitCount; i++) {
+            // 进入时间早于上一次更新，保证更新时的等待时间不为负
+            lastUpdateTimestamps[i] = NOW - random.nextInt(60);
+            enterTimestamps[i] = NOW - 60 - random.nextInt(600);
+            ranks[i] = random.nextInt(CRITERIA.maxRank()) + 1;
+            skills[i] = random.nextDouble() * 100;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        pool = new MatchMakingPoolGraph(CRITERIA, "graph", CONFIG);
+        units = new MatchUnit[unitCount];
+        for (int i = 0; i < unitCount; i++) {
+            var parameters = new MatchUnitTimeVaryingParameters(enterTimestamps[i], ranks[i], skills[i], new BitSet());
+            parameters.update(lastUpdateTimestamps[i], CONFIG);
+            units[i] = new MatchUnit(i + 1, new ArrayList<>(List.of((long) i)), 0.5, new HashMap<>(), parameters);
+            pool.addMatchUnit(units[i]);
+        }
+    }
+
+    @Benchmark
+    public int tickIncremental() {
+        pool.update(NOW + tickSeconds);
+        return pool.getGraph().edgeSet().size();
+    }
+
+    @Benchmark
+    public int tickFullRebuild() {
+        for (var unit : units) {
+            unit.timeVaryingParameters().update(NOW + tickSeconds, CONFIG);
+        }
+
+        Graph<MatchUnit, DefaultEdge> graph = GraphTypeBuilder.<MatchUnit, DefaultEdge>undirected()
+                .allowingMultipleEdges(false).allowingSelfLoops(false).edgeClass(DefaultEdge.class).buildGraph();
+        for (var unit : units) {
+            graph.addVertex(unit);
+        }
+        for (int i = 0; i < units.length; i++) {
+            for (int j = i + 1; j < units.length; j++) {
+                if (operator.isFitOneGame(units[i], units[j])) {
+                    graph.addEdge(units[i], units[j]);
+                }
+            }
+        }
+        return graph.edgeSet().size();
+    }
+}
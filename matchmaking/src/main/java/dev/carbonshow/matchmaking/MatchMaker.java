@@ -1,11 +1,15 @@
 package dev.carbonshow.matchmaking;
 
 import com.fasterxml.jackson.databind.MappingIterator;
+import dev.carbonshow.algorithm.NativeLibraries;
 
 import java.io.IOException;
 
 public class MatchMaker {
   public static void main(String[] args) {
+    // 在后台加载 OR-Tools 的 native library，和数据读取并行进行
+    var nativePreload = NativeLibraries.preloadAsync();
+
     MappingIterator<MatchMakingUserData> csvDataIterator;
     try {
       System.out.println("current working directory: " + System.getProperty("user.dir"));
@@ -15,5 +19,6 @@ public class MatchMaker {
     }
 
     System.out.println(csvDataIterator.next().toString());
+    System.out.println("native libraries loaded in " + nativePreload.join().toMillis() + " ms");
   }
 }
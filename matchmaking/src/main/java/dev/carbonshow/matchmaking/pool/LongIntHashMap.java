@@ -0,0 +1,213 @@
+package dev.carbonshow.matchmaking.pool;
+
+import java.util.Arrays;
+
+/**
+ * 键为 long、值为非负 int 的开放寻址哈希表，用于匹配单元 ID 到数组下标的索引。
+ * <p>
+ * 和 {@code HashMap<Long, Integer>} 相比，键和值都保存在基本类型数组中，没有装箱对象，也没有链表节点，
+ * 查找时只需要在连续的数组上线性探测。删除使用向后移位 (backward shift)，不需要墓碑标记，因此频繁增删不会让探测链变长。
+ * <p>
+ * 值在内部加 1 保存，0 表示空槽，所以任意 long 都可以作为键。非线程安全。
+ */
+final class LongIntHashMap {
+    // 查找失败时返回的值
+    static final int MISSING = -1;
+
+    // 最小容量，必须是 2 的幂
+    private static final int MIN_CAPACITY = 16;
+
+    // 槽位中的键
+    private long[] keys;
+
+    // 槽位中的值加 1，0 表示空槽
+    private int[] values;
+
+    // 容量减 1，用于取模
+    private int mask;
+
+    // 键值对的数量
+    private int size = 0;
+
+    LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize 预期的键值对数量，装载因子不超过 0.5，避免扩容
+     */
+    LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * 查找键对应的值
+     *
+     * @param key 键
+     * @return 值，不存在时返回 {@link #MISSING}
+     */
+    int get(long key) {
+        return values[probe(key)] - 1;
+    }
+
+    /**
+     * 是否包含指定的键
+     */
+    boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * 写入键值对，键已存在时覆盖
+     *
+     * @param key   键
+     * @param value 非负的值
+     * @return 原来的值，不存在时返回 {@link #MISSING}
+     */
+    int put(long key, int value) {
+        checkValue(value);
+        int slot = probe(key);
+        var previous = values[slot] - 1;
+        if (previous == MISSING) {
+            insert(slot, key, value);
+        } else {
+            values[slot] = value + 1;
+        }
+        return previous;
+    }
+
+    /**
+     * 仅当键不存在时写入，只探测一次
+     *
+     * @param key   键
+     * @param value 非负的值
+     * @return 已经存在的值，此时不做任何改变；不存在并写入成功时返回 {@link #MISSING}
+     */
+    int putIfAbsent(long key, int value) {
+        checkValue(value);
+        int slot = probe(key);
+        var previous = values[slot] - 1;
+        if (previous == MISSING) {
+            insert(slot, key, value);
+        }
+        return previous;
+    }
+
+    /**
+     * 删除键，之后的探测链通过向后移位填补空槽
+     *
+     * @param key 键
+     * @return 被删除的值，不存在时返回 {@link #MISSING}
+     */
+    int remove(long key) {
+        int slot = probe(key);
+        var previous = values[slot] - 1;
+        if (previous != MISSING) {
+            shiftBack(slot);
+            size--;
+        }
+        return previous;
+    }
+
+    /**
+     * 键值对的数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 清空所有键值对，保留容量
+     */
+    void clear() {
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    /**
+     * 从空出的槽位开始，把后面不在自己理想位置上的元素依次前移，保证所有探测链连续
+     *
+     * @param freed 空出的槽位
+     */
+    private void shiftBack(int freed) {
+        int slot = freed;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (values[slot] == 0) {
+                break;
+            }
+
+            // 理想位置在 (freed, slot] 之间的元素不能前移，否则会出现在理想位置之前
+            int ideal = slotOf(keys[slot]);
+            if (((slot - ideal) & mask) >= ((slot - freed) & mask)) {
+                keys[freed] = keys[slot];
+                values[freed] = values[slot];
+                freed = slot;
+            }
+        }
+        values[freed] = 0;
+    }
+
+    /**
+     * 线性探测，找到键所在的槽位，不存在时返回探测链末尾的空槽
+     */
+    private int probe(long key) {
+        int slot = slotOf(key);
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * 在 probe 返回的空槽中写入新的键值对，装载因子超过 0.5 时扩容
+     */
+    private void insert(int slot, long key, int value) {
+        keys[slot] = key;
+        values[slot] = value + 1;
+        if (++size * 2 > values.length) {
+            rehash(values.length * 2);
+        }
+    }
+
+    private static void checkValue(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative: " + value);
+        }
+    }
+
+    private int slotOf(long key) {
+        // Fibonacci hashing，将连续的 ID 分散到整个表
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void rehash(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int slot = slotOf(oldKeys[i]);
+                while (values[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
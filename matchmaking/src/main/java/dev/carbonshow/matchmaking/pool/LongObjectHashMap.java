@@ -0,0 +1,181 @@
+package dev.carbonshow.matchmaking.pool;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * 键为 long、值为对象的哈希表，用于匹配池中匹配单元 ID 到匹配单元的索引。
+ * <p>
+ * 键值对按插入顺序保存在两个并列的紧凑数组中，删除时最后一个键值对移动到被删除的位置；键到数组下标的索引是一个 {@link LongIntHashMap}，
+ * 开放寻址、线性探测和向后移位删除都由它完成，两个哈希表共用同一份探测逻辑。
+ * <p>
+ * 和 {@code HashMap<Long, V>} 相比，查找、插入和删除都不需要把 ID 装箱成 {@link Long}，也没有每个键值对一个的链表节点，
+ * 稳定状态下的增删不产生任何内存分配。值保存在紧凑数组中，遍历时不需要跳过空槽，匹配池可以直接在这个数组上建立只读视图。
+ * <p>
+ * 值不能为 null。非线程安全。
+ *
+ * @param <V> 值的类型
+ */
+final class LongObjectHashMap<V> {
+    // 紧凑数组的最小容量
+    private static final int MIN_CAPACITY = 16;
+
+    // 键到紧凑数组下标的索引
+    private final LongIntHashMap slots;
+
+    // 紧凑数组，只有前 size 个元素有效
+    private long[] keys;
+    private V[] values;
+
+    // 键值对的数量
+    private int size = 0;
+
+    /**
+     * @param arrayFactory 创建值数组的方法，比如 {@code MatchUnit[]::new}
+     */
+    LongObjectHashMap(IntFunction<V[]> arrayFactory) {
+        this(arrayFactory, MIN_CAPACITY);
+    }
+
+    /**
+     * @param arrayFactory 创建值数组的方法，比如 {@code MatchUnit[]::new}
+     * @param expectedSize 预期的键值对数量，避免扩容
+     */
+    LongObjectHashMap(IntFunction<V[]> arrayFactory, int expectedSize) {
+        slots = new LongIntHashMap(expectedSize);
+        keys = new long[Math.max(expectedSize, MIN_CAPACITY)];
+        values = arrayFactory.apply(keys.length);
+    }
+
+    /**
+     * 查找键对应的值
+     *
+     * @param key 键
+     * @return 值，不存在时返回 null
+     */
+    V get(long key) {
+        final int slot = slots.get(key);
+        return slot == LongIntHashMap.MISSING ? null : values[slot];
+    }
+
+    /**
+     * 是否包含指定的键
+     */
+    boolean containsKey(long key) {
+        return slots.containsKey(key);
+    }
+
+    /**
+     * 写入键值对，键已存在时覆盖
+     *
+     * @param key   键
+     * @param value 值，不能为 null
+     * @return 原来的值，不存在时返回 null
+     */
+    V put(long key, V value) {
+        checkValue(value);
+        final int slot = slots.putIfAbsent(key, size);
+        if (slot == LongIntHashMap.MISSING) {
+            append(key, value);
+            return null;
+        }
+        var previous = values[slot];
+        values[slot] = value;
+        return previous;
+    }
+
+    /**
+     * 仅当键不存在时写入，只探测一次
+     *
+     * @param key   键
+     * @param value 值，不能为 null
+     * @return 写入成功返回 true，键已存在时返回 false 且不做任何改变
+     */
+    boolean putIfAbsent(long key, V value) {
+        checkValue(value);
+        if (slots.putIfAbsent(key, size) != LongIntHashMap.MISSING) {
+            return false;
+        }
+        append(key, value);
+        return true;
+    }
+
+    /**
+     * 删除键，紧凑数组中最后一个键值对移动到被删除的位置
+     *
+     * @param key 键
+     * @return 被删除的值，不存在时返回 null
+     */
+    V remove(long key) {
+        final int slot = slots.remove(key);
+        if (slot == LongIntHashMap.MISSING) {
+            return null;
+        }
+
+        var previous = values[slot];
+        final int last = --size;
+        if (slot != last) {
+            keys[slot] = keys[last];
+            values[slot] = values[last];
+            slots.put(keys[slot], slot);
+        }
+        values[last] = null;
+        return previous;
+    }
+
+    /**
+     * 键值对的数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 清空所有键值对，保留容量
+     */
+    void clear() {
+        slots.clear();
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * 按紧凑数组的顺序访问所有值，访问过程中不能修改哈希表
+     */
+    void forEachValue(Consumer<? super V> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(values[i]);
+        }
+    }
+
+    /**
+     * 拷贝出所有的值，调用方可以自由修改
+     */
+    V[] values() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 内部的紧凑值数组，不拷贝，只有前 {@link #size()} 个元素有效，任何修改之后都可能失效
+     */
+    V[] denseValues() {
+        return values;
+    }
+
+    private void append(long key, V value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+    }
+
+    private static void checkValue(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("value must not be null");
+        }
+    }
+}
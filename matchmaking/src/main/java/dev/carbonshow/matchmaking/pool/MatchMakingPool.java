@@ -1,6 +1,7 @@
 package dev.carbonshow.matchmaking.pool;
 
 import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+import dev.carbonshow.matchmaking.solver.MatchUnitOperator;
 
 /**
  * 匹配池，用于高效管理内部存储单元
@@ -29,6 +30,17 @@ public interface MatchMakingPool {
      */
     default void update(long currentTimestamp) {}
 
+    /**
+     * 求解器判断两个匹配单元能否进入同一单局时使用的计算器，调用前需要先以求解的时间戳调用 {@link #update(long)}。
+     * 默认直接返回求解器自身的计算器，维护了兼容图的匹配池返回直接查询边的计算器
+     *
+     * @param defaultOperator 求解器自身的计算器
+     * @return 本次求解使用的计算器
+     */
+    default MatchUnitOperator pairOperator(MatchUnitOperator defaultOperator) {
+        return defaultOperator;
+    }
+
     /**
      * 根据匹配单元 ID 获取对应数据
      * @param matchUnitId 匹配单元唯一 ID
@@ -41,6 +53,27 @@ public interface MatchMakingPool {
      */
     MatchUnit[] matchUnits();
 
+    /**
+     * 获取匹配池当前状态的只读快照，求解器应当从同一个快照中读取匹配单元、数量和人数。
+     * 默认实现拷贝 {@link #matchUnits()} 且不带版本号，维护了紧凑数组的匹配池会返回零拷贝的视图
+     *
+     * @return 当前版本的快照
+     */
+    default MatchMakingPoolSnapshot snapshot() {
+        var units = matchUnits();
+        return new MatchMakingPoolSnapshot(this, units, units.length, userCount(), MatchMakingPoolSnapshot.UNVERSIONED,
+                false);
+    }
+
+    /**
+     * 匹配池的版本号，每次成功添加或者删除匹配单元都会改变，用于判断快照是否过期
+     *
+     * @return 当前版本号，不支持时返回 {@link MatchMakingPoolSnapshot#UNVERSIONED}
+     */
+    default long version() {
+        return MatchMakingPoolSnapshot.UNVERSIONED;
+    }
+
     /**
      * 获取匹配单元总数
      * @return 匹配单元总数
@@ -2,10 +2,11 @@ package dev.carbonshow.matchmaking.pool;
 
 import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
 
-import java.util.HashMap;
-
 /**
  * 提供匹配池常用的公共基础逻辑，比如配置信息，人数维护，名称等等
+ * <p>
+ * 匹配单元保存在 {@link LongObjectHashMap} 中，增删查都不需要装箱，值按紧凑数组排列。
+ * 每次成功增删都会递增版本号，{@link #snapshot()} 直接返回该数组上的只读视图，没有修改时返回同一个对象
  */
 public abstract class MatchMakingPoolBasic implements MatchMakingPool {
     // 匹配评估准则和参数配置
@@ -14,12 +15,18 @@ public abstract class MatchMakingPoolBasic implements MatchMakingPool {
     // 匹配池名称
     final private String name;
 
-    // 匹配单元，用 HashMap 保存，便于通过 ID 索引
-    final protected HashMap<Long, MatchUnit> units = new HashMap<>();
+    // 匹配单元 ID 到匹配单元的索引
+    final private LongObjectHashMap<MatchUnit> units = new LongObjectHashMap<>(MatchUnit[]::new);
 
     // 玩家总数，在匹配池增减单元时更新
     private int userCount = 0;
 
+    // 版本号，每次成功增删时递增
+    private long version = 0;
+
+    // 最近一次的快照，版本号变化后重新创建
+    private MatchMakingPoolSnapshot latest;
+
     MatchMakingPoolBasic(MatchMakingCriteria criteria, String name) {
         this.criteria = criteria;
         this.name = name;
@@ -27,23 +34,25 @@ public abstract class MatchMakingPoolBasic implements MatchMakingPool {
 
     @Override
     public boolean addMatchUnit(MatchUnit matchUnit) {
-        if (!units.containsKey(matchUnit.matchUnitId())) {
-            units.put(matchUnit.matchUnitId(), matchUnit);
-            userCount += matchUnit.userCount();
-            return true;
+        if (!units.putIfAbsent(matchUnit.matchUnitId(), matchUnit)) {
+            return false;
         }
-        return false;
+
+        userCount += matchUnit.userCount();
+        version++;
+        return true;
     }
 
     @Override
     public boolean removeMatchUnit(long matchUnitId) {
-        var unit = units.get(matchUnitId);
-        if (unit != null) {
-            userCount -= unit.userCount();
-            units.remove(matchUnitId);
-            return true;
+        var matchUnit = units.remove(matchUnitId);
+        if (matchUnit == null) {
+            return false;
         }
-        return false;
+
+        userCount -= matchUnit.userCount();
+        version++;
+        return true;
     }
 
     @Override
@@ -53,7 +62,24 @@ public abstract class MatchMakingPoolBasic implements MatchMakingPool {
 
     @Override
     public MatchUnit[] matchUnits() {
-        return units.values().toArray(MatchUnit[]::new);
+        return units.values();
+    }
+
+    /**
+     * 紧凑数组上的只读视图，不拷贝匹配单元，匹配池被修改之后失效
+     */
+    @Override
+    public MatchMakingPoolSnapshot snapshot() {
+        if (latest == null || latest.version() != version) {
+            latest = new MatchMakingPoolSnapshot(this, units.denseValues(), units.size(), userCount, version,
+                    true);
+        }
+        return latest;
+    }
+
+    @Override
+    public long version() {
+        return version;
     }
 
     @Override
@@ -0,0 +1,326 @@
+package dev.carbonshow.matchmaking.pool;
+
+import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
+
+import java.util.Arrays;
+
+/**
+ * 列式存储 (struct-of-arrays) 的匹配池。求解器扫描匹配池时最常读取的字段，分别保存在并列的基本类型数组中：
+ * <ul>
+ *     <li>ID、人数、段位、实力、进入时间、位置掩码</li>
+ *     <li>可接纳的段位区间和实力区间的上下界，在 {@link #update(long)} 时刷新</li>
+ * </ul>
+ * 第 i 个匹配单元的所有字段都位于各个数组的下标 i (称为槽位)，扫描某个字段只是顺序遍历一个连续数组，
+ * 不需要经过 {@link MatchUnit} 中的 List、Map、BitSet 和装箱的 Range 对象。完整的 {@link MatchUnit} 仍然保存在一个引用数组中，
+ * 供需要延迟等冷数据的逻辑使用。
+ * <p>
+ * 删除时把最后一个槽位移动到被删除的位置，所有数据始终紧凑地位于 [0, matchUnitCount) 中；ID 到槽位的索引使用基本类型的哈希表。
+ * 因此槽位在删除之后会发生变化，不能跨越修改操作保存。
+ * <p>
+ * 各个 column 方法直接返回内部数组，只读，且只有前 {@link #matchUnitCount()} 个元素有效，下一次修改之后可能失效。非线程安全。
+ */
+public class MatchMakingPoolColumnar implements MatchMakingPool {
+    // 默认的初始容量
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // 匹配评估准则和参数配置
+    final private MatchMakingCriteria criteria;
+
+    // 匹配池名称
+    final private String name;
+
+    // 时变参数的配置
+    final private TimeVaryingConfig timeVaryingConfig;
+
+    // ID 到槽位的索引
+    final private LongIntHashMap slots;
+
+    // 热数据列
+    private long[] ids;
+    private int[] userCounts;
+    private int[] ranks;
+    private double[] skills;
+    private long[] enterTimestamps;
+    private long[] positionMasks;
+    private int[] minRanks;
+    private int[] maxRanks;
+    private double[] minSkills;
+    private double[] maxSkills;
+
+    // 完整的匹配单元，和热数据列一一对应
+    private MatchUnit[] units;
+
+    // 匹配单元的数量，即有效槽位的数量
+    private int size = 0;
+
+    // 玩家总数，在匹配池增减单元时更新
+    private int userCount = 0;
+
+    // 版本号，每次成功增删时递增
+    private long version = 0;
+
+    // 最近一次的快照，版本号变化后重新创建
+    private MatchMakingPoolSnapshot latest;
+
+    /**
+     * @param criteria          匹配参数配置
+     * @param name              匹配池的名称
+     * @param timeVaryingConfig 时变参数的配置
+     */
+    public MatchMakingPoolColumnar(MatchMakingCriteria criteria, String name, TimeVaryingConfig timeVaryingConfig) {
+        this(criteria, name, timeVaryingConfig, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param criteria          匹配参数配置
+     * @param name              匹配池的名称
+     * @param timeVaryingConfig 时变参数的配置
+     * @param initialCapacity   初始容量，预计的匹配单元数量，超出时成倍扩容
+     */
+    public MatchMakingPoolColumnar(MatchMakingCriteria criteria, String name, TimeVaryingConfig timeVaryingConfig,
+                                   int initialCapacity) {
+        this.criteria = criteria;
+        this.name = name;
+        this.timeVaryingConfig = timeVaryingConfig;
+        slots = new LongIntHashMap(initialCapacity);
+        allocate(Math.max(initialCapacity, 1));
+    }
+
+    @Override
+    public boolean addMatchUnit(MatchUnit matchUnit) {
+        if (slots.containsKey(matchUnit.matchUnitId())) {
+            return false;
+        }
+        if (size == ids.length) {
+            allocate(size * 2);
+        }
+
+        final int slot = size++;
+        var parameters = matchUnit.timeVaryingParameters();
+        ids[slot] = matchUnit.matchUnitId();
+        userCounts[slot] = matchUnit.userCount();
+        ranks[slot] = parameters.getRank();
+        skills[slot] = parameters.getSkill();
+        enterTimestamps[slot] = parameters.startTimestamp();
+        positionMasks[slot] = matchUnit.positionAsLong();
+        units[slot] = matchUnit;
+        refreshWindow(slot);
+
+        slots.put(matchUnit.matchUnitId(), slot);
+        userCount += userCounts[slot];
+        version++;
+        return true;
+    }
+
+    @Override
+    public boolean removeMatchUnit(long matchUnitId) {
+        final int slot = slots.remove(matchUnitId);
+        if (slot == LongIntHashMap.MISSING) {
+            return false;
+        }
+
+        userCount -= userCounts[slot];
+        final int last = --size;
+        if (slot != last) {
+            // 最后一个槽位移动到被删除的位置，保持数据紧凑
+            ids[slot] = ids[last];
+            userCounts[slot] = userCounts[last];
+            ranks[slot] = ranks[last];
+            skills[slot] = skills[last];
+            enterTimestamps[slot] = enterTimestamps[last];
+            positionMasks[slot] = positionMasks[last];
+            minRanks[slot] = minRanks[last];
+            maxRanks[slot] = maxRanks[last];
+            minSkills[slot] = minSkills[last];
+            maxSkills[slot] = maxSkills[last];
+            units[slot] = units[last];
+            slots.put(ids[slot], slot);
+        }
+        units[last] = null;
+        version++;
+        return true;
+    }
+
+    /**
+     * 更新所有匹配单元的时变参数，并刷新可接纳区间的列
+     *
+     * @param currentTimestamp 当前时间戳，单位是秒
+     */
+    @Override
+    public void update(long currentTimestamp) {
+        for (int slot = 0; slot < size; slot++) {
+            units[slot].timeVaryingParameters().update(currentTimestamp, timeVaryingConfig);
+            refreshWindow(slot);
+        }
+    }
+
+    @Override
+    public MatchUnit getMatchUnit(long matchUnitId) {
+        final int slot = slots.get(matchUnitId);
+        return slot == LongIntHashMap.MISSING ? null : units[slot];
+    }
+
+    @Override
+    public MatchUnit[] matchUnits() {
+        return Arrays.copyOf(units, size);
+    }
+
+    /**
+     * 匹配单元列上的只读视图，下标和各个列的槽位一致，匹配池被修改之后失效
+     */
+    @Override
+    public MatchMakingPoolSnapshot snapshot() {
+        if (latest == null || latest.version() != version) {
+            latest = new MatchMakingPoolSnapshot(this, units, size, userCount, version, true);
+        }
+        return latest;
+    }
+
+    @Override
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public int matchUnitCount() {
+        return size;
+    }
+
+    @Override
+    public int userCount() {
+        return userCount;
+    }
+
+    @Override
+    public int maxGameCount() {
+        return userCount() / criteria.userCountPerGame();
+    }
+
+    @Override
+    public MatchMakingCriteria getCriteria() {
+        return criteria;
+    }
+
+    @Override
+    public String poolName() {
+        return name;
+    }
+
+    /**
+     * 匹配单元所在的槽位
+     *
+     * @param matchUnitId 匹配单元 ID
+     * @return 槽位，不存在时返回 -1
+     */
+    public int slotOf(long matchUnitId) {
+        return slots.get(matchUnitId);
+    }
+
+    /**
+     * 槽位上完整的匹配单元
+     */
+    public MatchUnit unitAt(int slot) {
+        return units[slot];
+    }
+
+    /**
+     * 匹配单元 ID 列
+     */
+    public long[] ids() {
+        return ids;
+    }
+
+    /**
+     * 人数列
+     */
+    public int[] userCounts() {
+        return userCounts;
+    }
+
+    /**
+     * 段位列
+     */
+    public int[] ranks() {
+        return ranks;
+    }
+
+    /**
+     * 实力列
+     */
+    public double[] skills() {
+        return skills;
+    }
+
+    /**
+     * 进入匹配池的时间戳列，单位是秒
+     */
+    public long[] enterTimestamps() {
+        return enterTimestamps;
+    }
+
+    /**
+     * 位置掩码列，具有位置 i 则第 i 位为 1
+     */
+    public long[] positionMasks() {
+        return positionMasks;
+    }
+
+    /**
+     * 可接纳段位区间的下界列
+     */
+    public int[] minRanks() {
+        return minRanks;
+    }
+
+    /**
+     * 可接纳段位区间的上界列
+     */
+    public int[] maxRanks() {
+        return maxRanks;
+    }
+
+    /**
+     * 可接纳实力区间的下界列
+     */
+    public double[] minSkills() {
+        return minSkills;
+    }
+
+    /**
+     * 可接纳实力区间的上界列
+     */
+    public double[] maxSkills() {
+        return maxSkills;
+    }
+
+    /**
+     * 从匹配单元的时变参数中读取可接纳区间
+     */
+    private void refreshWindow(int slot) {
+        var parameters = units[slot].timeVaryingParameters();
+        var rankRange = parameters.getMatchedRankRange();
+        var skillRange = parameters.getMatchedSkillRange();
+        minRanks[slot] = rankRange.getMinimum();
+        maxRanks[slot] = rankRange.getMaximum();
+        minSkills[slot] = skillRange.getMinimum();
+        maxSkills[slot] = skillRange.getMaximum();
+    }
+
+    /**
+     * 按照新的容量重新分配所有列，保留已有数据
+     */
+    private void allocate(int capacity) {
+        ids = ids == null ? new long[capacity] : Arrays.copyOf(ids, capacity);
+        userCounts = userCounts == null ? new int[capacity] : Arrays.copyOf(userCounts, capacity);
+        ranks = ranks == null ? new int[capacity] : Arrays.copyOf(ranks, capacity);
+        skills = skills == null ? new double[capacity] : Arrays.copyOf(skills, capacity);
+        enterTimestamps = enterTimestamps == null ? new long[capacity] : Arrays.copyOf(enterTimestamps, capacity);
+        positionMasks = positionMasks == null ? new long[capacity] : Arrays.copyOf(positionMasks, capacity);
+        minRanks = minRanks == null ? new int[capacity] : Arrays.copyOf(minRanks, capacity);
+        maxRanks = maxRanks == null ? new int[capacity] : Arrays.copyOf(maxRanks, capacity);
+        minSkills = minSkills == null ? new double[capacity] : Arrays.copyOf(minSkills, capacity);
+        maxSkills = maxSkills == null ? new double[capacity] : Arrays.copyOf(maxSkills, capacity);
+        units = units == null ? new MatchUnit[capacity] : Arrays.copyOf(units, capacity);
+    }
+}
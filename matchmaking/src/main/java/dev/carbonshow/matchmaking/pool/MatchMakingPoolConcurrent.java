@@ -0,0 +1,369 @@
+package dev.carbonshow.matchmaking.pool;
+
+import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 线程安全的匹配池，多个网关线程并发地加入和取消匹配，求解线程获取某一时刻的快照进行求解，两者只在交换日志的片刻互相等待。
+ * <p>
+ * 写入路径：匹配单元按 ID 分散到多个分段 (stripe) 中，每个分段由独立的锁保护，包含一个 {@link LongObjectHashMap}、
+ * 一个变更日志和一个修改计数。修改分段之后，在持有分段锁的同时把这次修改追加到该分段自己的日志中，
+ * 因此同一个 ID 的修改在日志中的顺序和实际发生的顺序一致。不同分段上的写入不共享任何可变状态，
+ * 匹配单元数量和玩家总数使用 {@link LongAdder}，同样不会让所有写入线程争抢同一个缓存行。
+ * <p>
+ * 读取路径：求解线程持有一个只属于自己的紧凑数组，{@link #snapshot()} 取走所有分段中积累的日志并应用到数组上。
+ * 取走日志时按下标顺序获取所有分段的锁，在同一轮中交换每个分段的日志列表，然后释放所有的锁，再在锁外应用日志，
+ * 持有锁的时间只和分段数量有关，和日志长度无关。只有数组发生变化时才拷贝出新的只读快照 (copy-on-write)，
+ * 两次快照之间没有修改时返回同一个对象。
+ * <p>
+ * 写入线程每次只持有一个分段锁，所以取走日志时所有的锁都被持有的那一刻，就是所有分段共同的时间切面：
+ * 在它之前完成的修改都在快照中，之后的修改都不在。比如网关先取消分段 1 中的 A，再以相同的玩家加入分段 2 中的 A'，
+ * 快照不会同时包含 A 和 A'，同一批玩家不会被匹配两次，快照的数量和人数也是某一时刻真实的状态。
+ * <p>
+ * 长时间不获取快照时，写入线程会在某个分段的日志积累到一定长度后顺便应用日志，避免日志无限增长；
+ * 此时如果求解线程正在获取快照，写入线程直接跳过，不会等待。
+ * <p>
+ * {@link #matchUnitCount()}、{@link #userCount()} 和 {@link #getMatchUnit(long)} 返回的是实时的值，
+ * 求解时应该使用同一个快照上的数据，保证匹配单元、数量和人数之间的一致性。
+ */
+public class MatchMakingPoolConcurrent implements MatchMakingPool {
+    // 单个分段的变更日志积累到该长度时，写入线程尝试顺便应用日志
+    private static final int COMPACT_THRESHOLD = 1 << 12;
+
+    // 匹配评估准则和参数配置
+    final private MatchMakingCriteria criteria;
+
+    // 匹配池名称
+    final private String name;
+
+    // 时变参数的配置
+    final private TimeVaryingConfig timeVaryingConfig;
+
+    // 按 ID 划分的分段，数量是 2 的幂
+    final private Stripe[] stripes;
+
+    // 选择分段时哈希值右移的位数
+    final private int stripeShift;
+
+    // 实时的匹配单元数量和玩家总数
+    final private LongAdder unitCount = new LongAdder();
+    final private LongAdder userCount = new LongAdder();
+
+    // 保护以下快照相关的状态，只在应用日志和获取快照时持有，写入线程只会 tryLock
+    final private ReentrantLock snapshotLock = new ReentrantLock();
+
+    // 应用日志后的紧凑数组，删除时最后一个元素移动到被删除的位置
+    private MatchUnit[] dense = new MatchUnit[16];
+    private int denseSize = 0;
+    private int denseUserCount = 0;
+
+    // 已经应用到紧凑数组的修改次数，作为快照的版本号
+    private long appliedChanges = 0;
+
+    // ID 到紧凑数组下标的索引
+    final private LongIntHashMap denseSlots = new LongIntHashMap();
+
+    // 最近一次的快照，紧凑数组发生变化后置为 null
+    private MatchMakingPoolSnapshot latest;
+
+    /**
+     * 分段数量默认为处理器数量的 4 倍
+     *
+     * @param criteria          匹配参数配置
+     * @param name              匹配池的名称
+     * @param timeVaryingConfig 时变参数的配置
+     */
+    public MatchMakingPoolConcurrent(MatchMakingCriteria criteria, String name, TimeVaryingConfig timeVaryingConfig) {
+        this(criteria, name, timeVaryingConfig, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param criteria          匹配参数配置
+     * @param name              匹配池的名称
+     * @param timeVaryingConfig 时变参数的配置
+     * @param concurrencyLevel  预计的并发写入线程数，分段数量是不小于它的 2 的幂
+     */
+    public MatchMakingPoolConcurrent(MatchMakingCriteria criteria, String name, TimeVaryingConfig timeVaryingConfig,
+                                     int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrency level must be positive: " + concurrencyLevel);
+        }
+
+        this.criteria = criteria;
+        this.name = name;
+        this.timeVaryingConfig = timeVaryingConfig;
+
+        int bits = 1;
+        while ((1 << bits) < concurrencyLevel && bits < 16) {
+            bits++;
+        }
+        stripeShift = 64 - bits;
+        stripes = new Stripe[1 << bits];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public boolean addMatchUnit(MatchUnit matchUnit) {
+        var stripe = stripeOf(matchUnit.matchUnitId());
+        int pending;
+        stripe.lock.lock();
+        try {
+            if (!stripe.units.putIfAbsent(matchUnit.matchUnitId(), matchUnit)) {
+                return false;
+            }
+            pending = stripe.record(new Change(matchUnit.matchUnitId(), matchUnit));
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        unitCount.increment();
+        userCount.add(matchUnit.userCount());
+        afterChange(pending);
+        return true;
+    }
+
+    @Override
+    public boolean removeMatchUnit(long matchUnitId) {
+        var stripe = stripeOf(matchUnitId);
+        MatchUnit unit;
+        int pending;
+        stripe.lock.lock();
+        try {
+            unit = stripe.units.remove(matchUnitId);
+            if (unit == null) {
+                return false;
+            }
+            pending = stripe.record(new Change(matchUnitId, null));
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        unitCount.decrement();
+        userCount.add(-unit.userCount());
+        afterChange(pending);
+        return true;
+    }
+
+    /**
+     * 获取匹配池在某一时刻的只读快照，只在交换各分段日志的片刻阻塞并发的写入。多个线程同时调用时依次执行。
+     * <p>
+     * 快照固定的是匹配单元的集合：之后的加入和取消匹配不影响已经得到的快照。但是匹配单元对象和匹配池共享，
+     * {@link #update(long)} 会原地修改其中的时变参数，这些修改对之前得到的快照同样可见，
+     * 所以快照中的时变参数并不是获取快照那一刻的值。
+     *
+     * @return 独立拷贝的快照，版本号是其中已经应用的修改次数
+     */
+    @Override
+    public MatchMakingPoolSnapshot snapshot() {
+        snapshotLock.lock();
+        try {
+            applyChanges();
+            if (latest == null) {
+                latest = new MatchMakingPoolSnapshot(this, Arrays.copyOf(dense, denseSize), denseSize, denseUserCount,
+                        appliedChanges, false);
+            }
+            return latest;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * 更新快照中所有匹配单元的时变参数。时变参数保存在匹配单元对象中，会被已有的快照看到，参见 {@link #snapshot()}，
+     * 因此应当由求解线程在两次求解之间调用
+     *
+     * @param currentTimestamp 当前时间戳，单位是秒
+     */
+    @Override
+    public void update(long currentTimestamp) {
+        snapshotLock.lock();
+        try {
+            applyChanges();
+            for (int i = 0; i < denseSize; i++) {
+                dense[i].timeVaryingParameters().update(currentTimestamp, timeVaryingConfig);
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public MatchUnit getMatchUnit(long matchUnitId) {
+        var stripe = stripeOf(matchUnitId);
+        stripe.lock.lock();
+        try {
+            return stripe.units.get(matchUnitId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 当前快照中所有的匹配单元
+     */
+    @Override
+    public MatchUnit[] matchUnits() {
+        return snapshot().matchUnits();
+    }
+
+    /**
+     * 所有分段已经写入变更日志的修改次数之和，和快照的版本号相等时说明快照包含了所有的修改
+     */
+    @Override
+    public long version() {
+        long version = 0;
+        for (var stripe : stripes) {
+            version += stripe.modifications;
+        }
+        return version;
+    }
+
+    @Override
+    public int matchUnitCount() {
+        return unitCount.intValue();
+    }
+
+    @Override
+    public int userCount() {
+        return userCount.intValue();
+    }
+
+    @Override
+    public int maxGameCount() {
+        return userCount() / criteria.userCountPerGame();
+    }
+
+    @Override
+    public MatchMakingCriteria getCriteria() {
+        return criteria;
+    }
+
+    @Override
+    public String poolName() {
+        return name;
+    }
+
+    private Stripe stripeOf(long matchUnitId) {
+        // 使用哈希值的最高几位，和分段内哈希表使用的位互不重叠
+        return stripes[(int) ((matchUnitId * 0x9E3779B97F4A7C15L) >>> stripeShift)];
+    }
+
+    /**
+     * 分段的日志过长时尝试顺便应用日志，求解线程正在获取快照时直接跳过。调用时不能持有分段锁
+     *
+     * @param pending 写入之后该分段日志的长度
+     */
+    private void afterChange(int pending) {
+        if (pending >= COMPACT_THRESHOLD && snapshotLock.tryLock()) {
+            try {
+                applyChanges();
+            } finally {
+                snapshotLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 在同一个时间切面上取走所有分段的变更日志，再按顺序应用到紧凑数组上，调用时必须持有 snapshotLock，不能持有分段锁。
+     * 按下标顺序获取所有分段锁，写入线程每次只持有一个分段锁，因此不会死锁
+     */
+    private void applyChanges() {
+        for (var stripe : stripes) {
+            stripe.lock.lock();
+        }
+        try {
+            for (var stripe : stripes) {
+                // 和空的备用列表交换，写入线程之后追加到备用列表中，取走的日志留在 spare 中等待应用
+                var drained = stripe.log;
+                stripe.log = stripe.spare;
+                stripe.spare = drained;
+            }
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].lock.unlock();
+            }
+        }
+
+        for (var stripe : stripes) {
+            var drained = stripe.spare;
+            if (drained.isEmpty()) {
+                continue;
+            }
+            for (var change : drained) {
+                apply(change);
+            }
+            appliedChanges += drained.size();
+            latest = null;
+
+            // 备用列表只会在持有 snapshotLock 时被交换，清空后留给下一次
+            drained.clear();
+        }
+    }
+
+    /**
+     * 把一条修改应用到紧凑数组上
+     */
+    private void apply(Change change) {
+        if (change.unit() != null) {
+            if (denseSize == dense.length) {
+                dense = Arrays.copyOf(dense, denseSize * 2);
+            }
+            denseSlots.put(change.matchUnitId(), denseSize);
+            dense[denseSize++] = change.unit();
+            denseUserCount += change.unit().userCount();
+        } else {
+            final int slot = denseSlots.remove(change.matchUnitId());
+            final int last = --denseSize;
+            denseUserCount -= dense[slot].userCount();
+            if (slot != last) {
+                dense[slot] = dense[last];
+                denseSlots.put(dense[slot].matchUnitId(), slot);
+            }
+            dense[last] = null;
+        }
+    }
+
+    /**
+     * 分段：锁，以及它保护的哈希表、变更日志和修改计数
+     */
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final LongObjectHashMap<MatchUnit> units = new LongObjectHashMap<>(MatchUnit[]::new);
+
+        // 尚未应用到紧凑数组的修改，按发生顺序排列
+        ArrayList<Change> log = new ArrayList<>();
+
+        // 应用日志时用来交换的备用列表，交换之后保存取走的日志，应用完成后清空，只在持有 snapshotLock 时读写
+        ArrayList<Change> spare = new ArrayList<>();
+
+        // 已经写入日志的修改次数，只在持有分段锁时写入，version() 不加锁读取
+        volatile long modifications = 0;
+
+        /**
+         * 追加一条修改，调用时必须持有分段锁
+         *
+         * @return 追加之后日志的长度
+         */
+        int record(Change change) {
+            log.add(change);
+            modifications++;
+            return log.size();
+        }
+    }
+
+    /**
+     * 变更日志中的一条修改
+     *
+     * @param matchUnitId 匹配单元 ID
+     * @param unit        加入的匹配单元，为 null 表示删除
+     */
+    private record Change(long matchUnitId, MatchUnit unit) {
+    }
+}
@@ -1,13 +1,30 @@
 package dev.carbonshow.matchmaking.pool;
 
 import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+import dev.carbonshow.matchmaking.config.MatchUnitTimeVaryingParameters;
 import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
+import dev.carbonshow.matchmaking.solver.AdjacencyMatchUnitOperator;
 import dev.carbonshow.matchmaking.solver.DefaultMatchUnitOperator;
 import dev.carbonshow.matchmaking.solver.MatchUnitOperator;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.builder.GraphTypeBuilder;
 
+import java.util.ArrayList;
+
+/**
+ * 以兼容图的形式维护匹配单元，两个匹配单元可以进入同一单局 ({@link MatchUnitOperator#isFitOneGame(MatchUnit, MatchUnit)})
+ * 则存在边。计算器满足区间约定 ({@link MatchUnitOperator#isBoundedByMatchedRanges()}，比如 {@link DefaultMatchUnitOperator}) 时，
+ * 边是增量维护的，不需要每次求解时重新比较所有的 O(n²) 个匹配单元对：
+ * <ul>
+ *     <li>加入匹配单元时，通过段位和实力的区间索引 {@link MatchUnitRangeIndex}，只和落在它可接纳区间内的候选单元比较</li>
+ *     <li>{@link #update(long)} 时，可接纳区间只会随时间放宽，因此只查询区间新覆盖的部分，补充新出现的边；
+ *     如果某个单元的区间缩小了 (比如时间戳回退)，则重新计算它的所有边</li>
+ *     <li>删除匹配单元时，和它相连的边一起删除</li>
+ * </ul>
+ * 其他计算器无法通过区间排除候选单元，加入时和所有匹配单元比较，{@link #update(long)} 时重建所有的边。
+ * 求解器可以通过 {@link #adjacencyOperator()} 直接查询边，代替重复的区间比较。
+ */
 public class MatchMakingPoolGraph extends MatchMakingPoolBasic {
     // 建立匹配单元的图结构，如果两个单元可以匹配则存在边
     // 显然，两个单元是否可以进入同一场单局，和时间因素密切相关，因此注意按时更新
@@ -15,6 +32,21 @@ public class MatchMakingPoolGraph extends MatchMakingPoolBasic {
 
     TimeVaryingConfig timeVaryingConfig;
 
+    // 判断两个匹配单元是否存在边
+    private final MatchUnitOperator operator;
+
+    // 计算器是否满足区间约定，为 false 时不能通过区间索引排除候选单元
+    private final boolean bounded;
+
+    // 基于边查询的匹配单元计算器，提供给求解器
+    private final MatchUnitOperator adjacencyOperator;
+
+    // 按段位和实力建立的索引，用于查找候选邻居
+    private final MatchUnitRangeIndex rangeIndex = new MatchUnitRangeIndex();
+
+    // 每个匹配单元上一次建立边时的可接纳区间，用于计算 update 之后新覆盖的部分
+    private final LongObjectHashMap<Window> windows = new LongObjectHashMap<>(Window[]::new);
+
     /**
      * 从 match unit 数组中建立图，默认会使用当前 Epoch 时间驱动，匹配单元时变参数的更新
      *
@@ -22,37 +54,58 @@ public class MatchMakingPoolGraph extends MatchMakingPoolBasic {
      * @param name     匹配池的名称
      */
     public MatchMakingPoolGraph(MatchMakingCriteria criteria, String name, TimeVaryingConfig timeVaryingConfig) {
-        this(criteria, name, new DefaultMatchUnitOperator(criteria, timeVaryingConfig));
-        this.timeVaryingConfig = timeVaryingConfig;
+        this(criteria, name, timeVaryingConfig, new DefaultMatchUnitOperator(criteria, timeVaryingConfig));
     }
 
     /**
-     * 从 match unit 数组中建立图，并更新时变参数
+     * 从 match unit 数组中建立图，并更新时变参数，使用默认的时变参数配置
      *
      * @param criteria 匹配参数配置
      * @param name     匹配池的名称
      * @param operator 匹配单元的计算逻辑
      */
     public MatchMakingPoolGraph(MatchMakingCriteria criteria, String name, MatchUnitOperator operator) {
+        this(criteria, name, TimeVaryingConfig.defaultVal(), operator);
+    }
+
+    /**
+     * 从 match unit 数组中建立图，并更新时变参数
+     *
+     * @param criteria          匹配参数配置
+     * @param name              匹配池的名称
+     * @param timeVaryingConfig 时变参数的配置
+     * @param operator          匹配单元的计算逻辑，用于判断两个匹配单元之间是否存在边
+     */
+    public MatchMakingPoolGraph(MatchMakingCriteria criteria, String name, TimeVaryingConfig timeVaryingConfig,
+                                MatchUnitOperator operator) {
         super(criteria, name);
         graph = GraphTypeBuilder.<MatchUnit, DefaultEdge>undirected().allowingMultipleEdges(false).allowingSelfLoops(false)
                 .edgeClass(DefaultEdge.class).weighted(true).buildGraph();
-        // 用于 MatchUnit 的计算
+        this.timeVaryingConfig = timeVaryingConfig;
+        this.operator = operator;
+        bounded = operator.isBoundedByMatchedRanges();
+        adjacencyOperator = new AdjacencyMatchUnitOperator(graph, operator);
     }
 
     /**
-     * 向匹配池中添加新的匹配单元，如果已经存在则不做任何改变
-     * <b>注意：并不添加边，因为边表示可进入同一单局的关系，且随时间变化，按需更新</b>
+     * 向匹配池中添加新的匹配单元，如果已经存在则不做任何改变。
+     * 新单元只和区间索引中落在它可接纳区间内的候选单元比较，建立边；计算器不满足区间约定时和所有单元比较
      *
      * @param matchUnit 待添加的匹配单元
      * @return true 说明池子中该单元并不存在，添加成功；否则失败，说明已经存在
      */
     @Override
     public boolean addMatchUnit(MatchUnit matchUnit) {
-        if (graph.addVertex(matchUnit)) {
-            return super.addMatchUnit(matchUnit);
+        if (!super.addMatchUnit(matchUnit)) {
+            return false;
         }
-        return false;
+
+        graph.addVertex(matchUnit);
+        var window = new Window(matchUnit.timeVaryingParameters());
+        windows.put(matchUnit.matchUnitId(), window);
+        connect(matchUnit, bounded ? window : Window.UNBOUNDED);
+        rangeIndex.add(matchUnit);
+        return true;
     }
 
     /**
@@ -66,15 +119,73 @@ public class MatchMakingPoolGraph extends MatchMakingPoolBasic {
         var unit = getMatchUnit(matchUnitId);
         if (unit != null) {
             graph.removeVertex(unit);
+            rangeIndex.remove(unit);
+            windows.remove(matchUnitId);
             return super.removeMatchUnit(matchUnitId);
         }
         return false;
     }
 
+    /**
+     * 更新所有匹配单元的时变参数，并补充区间放宽之后新出现的边。
+     * 先更新所有单元，再查询新覆盖的区间，这样两端的区间都已经是最新的。
+     * 计算器不满足区间约定时，无法判断哪些边发生了变化，更新之后重建所有的边
+     *
+     * @param currentTimestamp 当前时间戳，单位是秒
+     */
     @Override
     public void update(long currentTimestamp) {
-        for (var unit : units.values()) {
+        var view = snapshot();
+        if (!bounded) {
+            for (int i = 0; i < view.size(); i++) {
+                view.get(i).timeVaryingParameters().update(currentTimestamp, this.timeVaryingConfig);
+            }
+            graph.removeAllEdges(new ArrayList<>(graph.edgeSet()));
+            for (int i = 0; i < view.size(); i++) {
+                connect(view.get(i), Window.UNBOUNDED);
+            }
+            return;
+        }
+
+        var widened = new ArrayList<MatchUnit>();
+        var previous = new ArrayList<Window>();
+        var narrowed = new ArrayList<MatchUnit>();
+        for (int i = 0; i < view.size(); i++) {
+            var unit = view.get(i);
             unit.timeVaryingParameters().update(currentTimestamp, this.timeVaryingConfig);
+
+            var window = windows.get(unit.matchUnitId());
+            var current = new Window(unit.timeVaryingParameters());
+            if (current.equals(window)) {
+                continue;
+            }
+            if (current.contains(window)) {
+                widened.add(unit);
+                previous.add(window);
+            } else {
+                narrowed.add(unit);
+            }
+            windows.put(unit.matchUnitId(), current);
+        }
+
+        // 区间缩小的单元，已有的边可能失效，重新计算
+        for (var unit : narrowed) {
+            for (var edge : new ArrayList<>(graph.edgesOf(unit))) {
+                graph.removeEdge(edge);
+            }
+            connect(unit, windows.get(unit.matchUnitId()));
+        }
+
+        // 区间放宽的单元，只需要查询新覆盖的部分：段位在原区间之外的整个实力区间，以及段位在原区间之内、实力在原区间之外的部分。
+        // 新出现的边至少有一端的区间新覆盖了另一端，所以一定会被其中一端查询到
+        for (int i = 0; i < widened.size(); i++) {
+            var unit = widened.get(i);
+            var before = previous.get(i);
+            var after = windows.get(unit.matchUnitId());
+            connect(unit, after.minRank, before.minRank - 1, after.minSkill, after.maxSkill);
+            connect(unit, before.maxRank + 1, after.maxRank, after.minSkill, after.maxSkill);
+            connect(unit, before.minRank, before.maxRank, after.minSkill, before.minSkill);
+            connect(unit, before.minRank, before.maxRank, before.maxSkill, after.maxSkill);
         }
     }
 
@@ -82,6 +193,56 @@ public class MatchMakingPoolGraph extends MatchMakingPoolBasic {
         return graph;
     }
 
-    private void test() {
+    /**
+     * 通过查询边判断兼容性的计算器，求解前需要先以相同的时间戳调用 {@link #update(long)}
+     */
+    public MatchUnitOperator adjacencyOperator() {
+        return adjacencyOperator;
+    }
+
+    /**
+     * 求解器的计算器和建立边的计算器相同 ({@link Object#equals}) 时直接查询边，不再两两比较区间；
+     * 否则边和求解器的判断规则不一致，直接返回求解器自身的计算器
+     */
+    @Override
+    public MatchUnitOperator pairOperator(MatchUnitOperator defaultOperator) {
+        return operator.equals(defaultOperator) ? adjacencyOperator : defaultOperator;
+    }
+
+    private void connect(MatchUnit unit, Window window) {
+        connect(unit, window.minRank, window.maxRank, window.minSkill, window.maxSkill);
+    }
+
+    /**
+     * 在区间索引中查找段位和实力落在给定区间内的候选单元，和 unit 可以进入同一单局的建立边
+     */
+    private void connect(MatchUnit unit, int minRank, int maxRank, double minSkill, double maxSkill) {
+        rangeIndex.forEachInRange(minRank, maxRank, minSkill, maxSkill, candidate -> {
+            if (candidate != unit && !graph.containsEdge(unit, candidate) && operator.isFitOneGame(unit, candidate)) {
+                graph.addEdge(unit, candidate);
+            }
+        });
+    }
+
+    /**
+     * 匹配单元可接纳的段位和实力区间
+     */
+    private record Window(int minRank, int maxRank, double minSkill, double maxSkill) {
+        // 覆盖所有段位和实力，用于不满足区间约定的计算器
+        static final Window UNBOUNDED = new Window(Integer.MIN_VALUE, Integer.MAX_VALUE, Double.NEGATIVE_INFINITY,
+                Double.POSITIVE_INFINITY);
+
+        Window(MatchUnitTimeVaryingParameters parameters) {
+            this(parameters.getMatchedRankRange().getMinimum(), parameters.getMatchedRankRange().getMaximum(),
+                    parameters.getMatchedSkillRange().getMinimum(), parameters.getMatchedSkillRange().getMaximum());
+        }
+
+        /**
+         * 是否包含另一个区间
+         */
+        boolean contains(Window other) {
+            return minRank <= other.minRank && maxRank >= other.maxRank
+                    && minSkill <= other.minSkill && maxSkill >= other.maxSkill;
+        }
     }
 }
@@ -0,0 +1,181 @@
+package dev.carbonshow.matchmaking.pool;
+
+import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+
+/**
+ * 匹配池在某个版本上的只读视图，通过 {@link MatchMakingPool#snapshot()} 获取。
+ * <p>
+ * 匹配池维护一个紧凑的匹配单元数组，并在每次成功增删时递增版本号 {@link MatchMakingPool#version()}。
+ * 快照直接引用这个数组，通过 {@link #size()} 和 {@link #get(int)} 按下标访问，不产生拷贝；
+ * 匹配池没有修改时，多次获取快照返回同一个对象。求解器可以通过 {@link #sameVersionAs(MatchMakingPoolSnapshot)}
+ * 判断匹配单元集合自上次求解以来是否发生变化，没有变化时直接复用上次排序或者推导出的结果。
+ * <p>
+ * 单线程的匹配池返回的快照引用的是匹配池内部的数组，匹配池被修改之后快照的内容随之失效，
+ * 此时按下标、按 ID 访问或者拷贝匹配单元都会抛出 {@link ConcurrentModificationException}，可以事先通过 {@link #isCurrent()} 检查；
+ * {@link MatchMakingPoolConcurrent} 和默认实现返回的快照是独立的拷贝，始终可以读取。
+ * 匹配单元的时变参数保存在匹配单元对象中，不受版本号约束。
+ */
+public final class MatchMakingPoolSnapshot implements MatchMakingPool {
+    // 不支持版本号的匹配池使用该值，这样的快照总是被认为发生了变化
+    public static final long UNVERSIONED = -1;
+
+    // 快照所属的匹配池
+    private final MatchMakingPool source;
+
+    // 匹配单元数组，只有前 size 个元素有效
+    private final MatchUnit[] units;
+    private final int size;
+
+    // 玩家总数
+    private final int userCount;
+
+    // 快照对应的版本号
+    private final long version;
+
+    // 是否直接引用匹配池内部的数组，为 true 时匹配池被修改之后不能再读取
+    private final boolean live;
+
+    // ID 索引，第一次按 ID 查询时建立
+    private LongIntHashMap slots;
+
+    /**
+     * @param source    快照所属的匹配池
+     * @param units     匹配单元数组，不拷贝
+     * @param size      有效的匹配单元数量
+     * @param userCount 玩家总数
+     * @param version   匹配池的版本号，不支持时为 {@link #UNVERSIONED}
+     * @param live      units 是否为匹配池内部的数组，为 false 表示独立的拷贝
+     */
+    MatchMakingPoolSnapshot(MatchMakingPool source, MatchUnit[] units, int size, int userCount, long version,
+                            boolean live) {
+        this.source = source;
+        this.units = units;
+        this.size = size;
+        this.userCount = userCount;
+        this.version = version;
+        this.live = live;
+    }
+
+    /**
+     * 快照对应的版本号
+     */
+    @Override
+    public long version() {
+        return version;
+    }
+
+    /**
+     * 匹配池自获取快照以来是否没有被修改，为 false 时单线程匹配池的快照内容已经失效
+     */
+    public boolean isCurrent() {
+        return version != UNVERSIONED && source.version() == version;
+    }
+
+    /**
+     * 两个快照是否来自同一个匹配池的同一个版本，即包含完全相同的匹配单元
+     *
+     * @param other 另一个快照，可以为 null
+     */
+    public boolean sameVersionAs(MatchMakingPoolSnapshot other) {
+        return other != null && version != UNVERSIONED && source == other.source && version == other.version;
+    }
+
+    /**
+     * 匹配单元数量，和 {@link #matchUnitCount()} 相同
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按下标访问匹配单元
+     *
+     * @param index 下标，范围是 [0, size)
+     * @throws ConcurrentModificationException 引用匹配池内部数组的快照已经过期
+     */
+    public MatchUnit get(int index) {
+        checkCurrent();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of snapshot size " + size);
+        }
+        return units[index];
+    }
+
+    /**
+     * 只读的快照
+     */
+    @Override
+    public MatchMakingPoolSnapshot snapshot() {
+        return this;
+    }
+
+    @Override
+    public boolean addMatchUnit(MatchUnit matchUnit) {
+        throw new UnsupportedOperationException("snapshot of " + source.poolName() + " is read-only");
+    }
+
+    @Override
+    public boolean removeMatchUnit(long matchUnitId) {
+        throw new UnsupportedOperationException("snapshot of " + source.poolName() + " is read-only");
+    }
+
+    @Override
+    public synchronized MatchUnit getMatchUnit(long matchUnitId) {
+        checkCurrent();
+        if (slots == null) {
+            slots = new LongIntHashMap(size);
+            for (int i = 0; i < size; i++) {
+                slots.put(units[i].matchUnitId(), i);
+            }
+        }
+        final int slot = slots.get(matchUnitId);
+        return slot == LongIntHashMap.MISSING ? null : units[slot];
+    }
+
+    /**
+     * 拷贝出匹配单元数组，调用方可以自由修改，比如排序
+     */
+    @Override
+    public MatchUnit[] matchUnits() {
+        checkCurrent();
+        return Arrays.copyOf(units, size);
+    }
+
+    @Override
+    public int matchUnitCount() {
+        return size;
+    }
+
+    @Override
+    public int userCount() {
+        return userCount;
+    }
+
+    @Override
+    public int maxGameCount() {
+        return userCount / getCriteria().userCountPerGame();
+    }
+
+    @Override
+    public MatchMakingCriteria getCriteria() {
+        return source.getCriteria();
+    }
+
+    @Override
+    public String poolName() {
+        return source.poolName();
+    }
+
+    /**
+     * 引用匹配池内部数组的快照过期之后，数组中的内容和 ID 索引都不再可信，直接失败而不是返回错误的匹配单元
+     */
+    private void checkCurrent() {
+        if (live && !isCurrent()) {
+            throw new ConcurrentModificationException("snapshot of " + source.poolName() + " at version " + version
+                    + " is stale, pool is at version " + source.version());
+        }
+    }
+}
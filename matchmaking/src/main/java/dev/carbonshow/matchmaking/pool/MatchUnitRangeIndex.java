@@ -0,0 +1,99 @@
+package dev.carbonshow.matchmaking.pool;
+
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 按段位和实力建立的二维区间索引，用于找出段位和实力落在给定区间内的匹配单元。
+ * <p>
+ * 第一层是段位到桶的有序映射，第二层是每个桶内按照实力升序排列的数组。查询时先通过 {@link TreeMap#subMap}
+ * 定位段位区间内的桶，再在每个桶中二分查找实力区间的起点，只访问真正落在区间内的匹配单元。
+ * 匹配单元的段位和实力在匹配过程中不变，只有可接纳的区间随时间变化，因此索引只在增删时修改。非线程安全。
+ */
+final class MatchUnitRangeIndex {
+    // 段位到同一段位匹配单元的映射，桶内按照实力升序排列
+    private final TreeMap<Integer, ArrayList<MatchUnit>> buckets = new TreeMap<>();
+
+    /**
+     * 加入匹配单元，不检查是否重复
+     */
+    void add(MatchUnit unit) {
+        var bucket = buckets.computeIfAbsent(unit.rank(), rank -> new ArrayList<>());
+        bucket.add(upperBound(bucket, unit.skill()), unit);
+    }
+
+    /**
+     * 删除匹配单元
+     *
+     * @return 是否存在并且被删除
+     */
+    boolean remove(MatchUnit unit) {
+        var bucket = buckets.get(unit.rank());
+        if (bucket == null) {
+            return false;
+        }
+
+        // 实力相同的匹配单元是连续的，从第一个开始按 ID 查找
+        for (int i = lowerBound(bucket, unit.skill()); i < bucket.size() && bucket.get(i).skill() == unit.skill(); i++) {
+            if (bucket.get(i).matchUnitId() == unit.matchUnitId()) {
+                bucket.remove(i);
+                if (bucket.isEmpty()) {
+                    buckets.remove(unit.rank());
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 依次访问段位在 [minRank, maxRank]、实力在 [minSkill, maxSkill] 内的匹配单元，区间为空时不访问任何单元。
+     * 访问过程中不能修改索引
+     */
+    void forEachInRange(int minRank, int maxRank, double minSkill, double maxSkill, Consumer<MatchUnit> action) {
+        if (minRank > maxRank || minSkill > maxSkill) {
+            return;
+        }
+
+        for (var bucket : buckets.subMap(minRank, true, maxRank, true).values()) {
+            for (int i = lowerBound(bucket, minSkill); i < bucket.size() && bucket.get(i).skill() <= maxSkill; i++) {
+                action.accept(bucket.get(i));
+            }
+        }
+    }
+
+    /**
+     * 第一个实力不小于 skill 的下标
+     */
+    private static int lowerBound(ArrayList<MatchUnit> bucket, double skill) {
+        int low = 0;
+        int high = bucket.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bucket.get(mid).skill() < skill) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 第一个实力大于 skill 的下标
+     */
+    private static int upperBound(ArrayList<MatchUnit> bucket, double skill) {
+        int low = 0;
+        int high = bucket.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bucket.get(mid).skill() <= skill) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
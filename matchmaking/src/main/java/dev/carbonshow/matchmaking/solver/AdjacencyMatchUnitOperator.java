@@ -0,0 +1,63 @@
+package dev.carbonshow.matchmaking.solver;
+
+import dev.carbonshow.matchmaking.pool.MatchUnit;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.security.InvalidParameterException;
+import java.util.BitSet;
+
+/**
+ * 基于兼容图的匹配单元计算器。两个匹配单元之间的兼容关系由 {@link dev.carbonshow.matchmaking.pool.MatchMakingPoolGraph}
+ * 增量维护为图中的边，这里直接查询边是否存在，不再重复比较段位和实力区间；其他计算交给被包装的计算器。
+ * 组队时的规则可能比进入同一单局更严格，因此边只作为预筛选，存在边时仍然交给被包装的计算器判断。
+ * <p>
+ * 只有图已经按照本次求解的时间戳更新过，查询结果才和被包装的计算器一致，
+ * 因此求解前应当先调用匹配池的 {@code update}。
+ */
+public class AdjacencyMatchUnitOperator implements MatchUnitOperator {
+    private final Graph<MatchUnit, DefaultEdge> graph;
+    private final MatchUnitOperator delegate;
+
+    /**
+     * @param graph    兼容图，存在边表示两个匹配单元可以进入同一单局
+     * @param delegate 处理队伍合并、队伍之间的兼容性等其他计算
+     */
+    public AdjacencyMatchUnitOperator(Graph<MatchUnit, DefaultEdge> graph, MatchUnitOperator delegate) {
+        this.graph = graph;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isFitOneTeam(MatchUnit unit1, MatchUnit unit2) {
+        return graph.containsEdge(unit1, unit2) && delegate.isFitOneTeam(unit1, unit2);
+    }
+
+    @Override
+    public boolean isFitOneGame(MatchUnit unit1, MatchUnit unit2) {
+        return graph.containsEdge(unit1, unit2);
+    }
+
+    @Override
+    public boolean isFitOneGame(FeasibleTeam team1, FeasibleTeam team2) {
+        return delegate.isFitOneGame(team1, team2);
+    }
+
+    @Override
+    public FeasibleTeam mergeUnitsToTeam(MatchUnit[] units, BitSet unitMembers, long currentTimestamp) throws InvalidParameterException {
+        return delegate.mergeUnitsToTeam(units, unitMembers, currentTimestamp);
+    }
+
+    @Override
+    public double getWinProbability(MatchUnit unit1, MatchUnit unit2) {
+        return delegate.getWinProbability(unit1, unit2);
+    }
+
+    /**
+     * 图中的边由被包装的计算器建立，是否满足区间约定也和它一致
+     */
+    @Override
+    public boolean isBoundedByMatchedRanges() {
+        return delegate.isBoundedByMatchedRanges();
+    }
+}
@@ -82,6 +82,31 @@ public class DefaultMatchUnitOperator implements MatchUnitOperator {
         return 0;
     }
 
+    /**
+     * 兼容性由 {@link #checkTimeVaryingParameters} 决定，要求双方互相落在对方的可接纳区间内
+     */
+    @Override
+    public boolean isBoundedByMatchedRanges() {
+        return true;
+    }
+
+    /**
+     * 同一个类型、相同的匹配参数和时变参数配置的计算器，判断结果完全相同
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        var other = (DefaultMatchUnitOperator) o;
+        return matchMakingCriteria.equals(other.matchMakingCriteria) && timeVaryingConfig.equals(other.timeVaryingConfig);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * matchMakingCriteria.hashCode() + timeVaryingConfig.hashCode();
+    }
+
     /**
      * 判断两个匹配单元的时变参数是否符合要求。skill 和 rank 的容忍度都是随时间变化的，相互有交集即可用
      *
@@ -1,6 +1,7 @@
 package dev.carbonshow.matchmaking.solver;
 
 import com.google.ortools.sat.*;
+import dev.carbonshow.algorithm.NativeLibraries;
 import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
 import dev.carbonshow.matchmaking.config.SolverParameters;
 import dev.carbonshow.matchmaking.pool.MatchUnit;
@@ -23,6 +24,7 @@ public class FeasibleGameCPFinder implements FeasibleGameFinder {
 
     @Override
     public List<FeasibleGame> solve(MatchUnit[] units, List<FeasibleTeam> teams, SolverParameters parameters, long currentTimestamp) {
+        NativeLibraries.ensureLoaded();
         CpModel model = new CpModel();
 
         // 决策变量是 teams 可以分配到同一个 Game 中
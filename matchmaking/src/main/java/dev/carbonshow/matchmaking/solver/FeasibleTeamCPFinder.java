@@ -1,6 +1,7 @@
 package dev.carbonshow.matchmaking.solver;
 
 import com.google.ortools.sat.*;
+import dev.carbonshow.algorithm.NativeLibraries;
 import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
 import dev.carbonshow.matchmaking.config.SolverParameters;
 import dev.carbonshow.matchmaking.pool.MatchUnit;
@@ -42,6 +43,8 @@ public class FeasibleTeamCPFinder implements FeasibleTeamFinder {
      */
     @Override
     public ArrayList<FeasibleTeam> solve(MatchUnit[] units, long currentTimestamp) {
+        NativeLibraries.ensureLoaded();
+
         // 定义模型
         CpModel model = new CpModel();
 
@@ -1,11 +1,12 @@
 package dev.carbonshow.matchmaking.solver;
 
-import com.google.ortools.Loader;
 import com.google.ortools.sat.*;
+import dev.carbonshow.algorithm.NativeLibraries;
 import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
 import dev.carbonshow.matchmaking.config.SolverParameters;
 import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
 import dev.carbonshow.matchmaking.pool.MatchMakingPool;
+import dev.carbonshow.matchmaking.pool.MatchMakingPoolSnapshot;
 import dev.carbonshow.matchmaking.pool.MatchUnit;
 
 import java.util.*;
@@ -41,7 +42,6 @@ public class MatchMakingCPSolver implements MatchMakingSolver {
         this.name = name;
         this.timeVaryingConfig = timeVaryingConfig;
         operator = new DefaultMatchUnitOperator(criteria, timeVaryingConfig);
-        Loader.loadNativeLibraries();
     }
 
     /**
@@ -74,13 +74,21 @@ public class MatchMakingCPSolver implements MatchMakingSolver {
      */
     @Override
     public MatchMakingResults solve(MatchMakingPool pool, SolverParameters parameters, long currentTimestamp) {
+        // 通常已经在启动时预加载，这里只是确认
+        NativeLibraries.ensureLoaded();
+
         // 定义模型
         CpModel model = new CpModel();
 
-        final MatchUnit[] units = pool.matchUnits();
+        // 匹配池先更新到当前时间，兼容图会补充新出现的边，之后直接查询边，不再两两比较区间
+        pool.update(currentTimestamp);
+        final MatchUnitOperator pairOperator = pool.pairOperator(operator);
+
+        // 数量、人数和匹配单元来自同一个快照，按下标直接访问，不拷贝匹配单元数组
+        final MatchMakingPoolSnapshot units = pool.snapshot();
 
-        final int matchUnitCount = pool.matchUnitCount();
-        final int maxGameCount = pool.maxGameCount();
+        final int matchUnitCount = units.size();
+        final int maxGameCount = units.maxGameCount();
         final int teamCountPerGame = pool.getCriteria().teamCountPerGame();
         final int userCountPerTeam = pool.getCriteria().userCountPerTeam();
         final int userCountPerGame = pool.getCriteria().userCountPerGame();
@@ -89,11 +97,11 @@ public class MatchMakingCPSolver implements MatchMakingSolver {
         Literal[][][] assignment = new Literal[matchUnitCount][maxGameCount][teamCountPerGame];
         for (int i = 0; i < matchUnitCount; i++) {
             // 更新当前 Unit 的时变参数
-            units[i].timeVaryingParameters().update(currentTimestamp, timeVaryingConfig);
+            units.get(i).timeVaryingParameters().update(currentTimestamp, timeVaryingConfig);
 
             for (int j = 0; j < maxGameCount; j++) {
                 for (int k = 0; k < teamCountPerGame; k++) {
-                    assignment[i][j][k] = model.newBoolVar("assignment" + units[i].matchUnitId() + "g" + j + "t" + k);
+                    assignment[i][j][k] = model.newBoolVar("assignment" + units.get(i).matchUnitId() + "g" + j + "t" + k);
                 }
             }
         }
@@ -112,7 +120,7 @@ public class MatchMakingCPSolver implements MatchMakingSolver {
                 LinearExprBuilder teamUserCount = LinearExpr.newBuilder();
                 teamUserCount.addTerm(games[j], -userCountPerTeam);
                 for (int i = 0; i < matchUnitCount; i++) {
-                    teamUserCount.addTerm(assignment[i][j][k], units[i].userCount());
+                    teamUserCount.addTerm(assignment[i][j][k], units.get(i).userCount());
                 }
                 model.addEquality(teamUserCount, 0);
                 gameUserCount.add(teamUserCount);
@@ -132,7 +140,7 @@ public class MatchMakingCPSolver implements MatchMakingSolver {
         // 计算互斥关系
         for (int i = 0; i < matchUnitCount - 1; i++) {
             for (int j = i + 1; j < matchUnitCount; j++) {
-                if (!operator.isFitOneGame(units[i], units[j])) {
+                if (!pairOperator.isFitOneGame(units.get(i), units.get(j))) {
                     // 不能出现在同一个单局中，没必要计算是否可以出现在同一个 team 中
                     for (int x = 0; x < maxGameCount; x++) {
                         ArrayList<Literal> unitsLiteral = new ArrayList<>();
@@ -173,7 +181,8 @@ public class MatchMakingCPSolver implements MatchMakingSolver {
         return name;
     }
 
-    private MatchMakingResults getOptimalResults(CpSolver solver, Literal[] games, Literal[][][] assignment, MatchUnit[] units) {
+    private MatchMakingResults getOptimalResults(CpSolver solver, Literal[] games, Literal[][][] assignment,
+                                                MatchMakingPoolSnapshot units) {
         final int userCount = assignment.length;
         final int gameCount = assignment[0].length;
         final int teamCount = assignment[0][0].length;
@@ -188,7 +197,7 @@ public class MatchMakingCPSolver implements MatchMakingSolver {
                     ArrayList<Long> validTeams = new ArrayList<>();
                     for (int i = 0; i < userCount; i++) {
                         if (solver.booleanValue(assignment[i][j][k])) {
-                            validTeams.add(units[i].matchUnitId());
+                            validTeams.add(units.get(i).matchUnitId());
                         }
                     }
                     validGames.add(validTeams);
@@ -1,13 +1,14 @@
 package dev.carbonshow.matchmaking.solver;
 
-import com.google.ortools.Loader;
 import com.google.ortools.linearsolver.MPConstraint;
 import com.google.ortools.linearsolver.MPObjective;
 import com.google.ortools.linearsolver.MPSolver;
+import dev.carbonshow.algorithm.NativeLibraries;
 import dev.carbonshow.matchmaking.config.MatchMakingCriteria;
 import dev.carbonshow.matchmaking.config.SolverParameters;
 import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
 import dev.carbonshow.matchmaking.pool.MatchMakingPool;
+import dev.carbonshow.matchmaking.pool.MatchMakingPoolSnapshot;
 import dev.carbonshow.matchmaking.pool.MatchUnit;
 
 import java.util.*;
@@ -29,23 +30,35 @@ import java.util.*;
  *         </ul>
  *     </li>
  * </ul>
+ * 求解器在多次调用之间只保存按成员数量排序的匹配单元，以不可变的记录整体发布，其他状态都是每次调用的局部变量，
+ * 多个线程可以同时调用 {@link #solve}。但是求解会原地更新匹配单元的时变参数，同一个匹配池仍然应当由一个线程求解。
  */
 public class MatchMakingDecomposeSolver implements MatchMakingSolver {
     private final String name;
+    private final MatchMakingCriteria criteria;
 
     private final FeasibleTeamFinder teamFinder;
     private final FeasibleGameFinder gameFinder;
     private final TimeVaryingConfig timeVaryingConfig;
+    private final MatchUnitOperator operator;
+
+    /**
+     * 按照成员数量升序排列的匹配单元，以及排序时使用的快照。发布之后不再修改
+     */
+    private record SortedUnits(MatchMakingPoolSnapshot snapshot, MatchUnit[] units) {
+    }
+
+    // 上一次求解排好序的匹配单元，匹配池版本不变时直接复用
+    private volatile SortedUnits sorted;
 
     public MatchMakingDecomposeSolver(MatchMakingCriteria criteria, String name, TimeVaryingConfig timeVaryingConfig) {
         this.name = name;
+        this.criteria = criteria;
         this.timeVaryingConfig = timeVaryingConfig;
-        var operator = new DefaultMatchUnitOperator(criteria, timeVaryingConfig);
+        operator = new DefaultMatchUnitOperator(criteria, timeVaryingConfig);
         teamFinder = new FeasibleTeamDPFinder(criteria, operator);
         gameFinder = new FeasibleGameBacktraceFinder(criteria, operator);
         //gameFinder = new FeasibleGameCPFinder(this.criteria, operator);
-
-        Loader.loadNativeLibraries();
     }
 
     /**
@@ -78,16 +91,21 @@ public class MatchMakingDecomposeSolver implements MatchMakingSolver {
      */
     @Override
     public MatchMakingResults solve(MatchMakingPool pool, SolverParameters parameters, long currentTimestamp) {
-        // 获取匹配单元数组，并按照成员数量升序排列
-        final MatchUnit[] units = pool.matchUnits();
+        // 通常已经在启动时预加载，这里只是确认
+        NativeLibraries.ensureLoaded();
+
+        // 匹配池先更新到当前时间，兼容图会补充新出现的边
+        pool.update(currentTimestamp);
+
+        // 获取按照成员数量升序排列的匹配单元数组
+        final MatchUnit[] units = sortedUnits(pool.snapshot());
         for (MatchUnit unit : units) {
             unit.timeVaryingParameters().update(currentTimestamp, timeVaryingConfig);
         }
-        Arrays.sort(units, Comparator.comparingInt(MatchUnit::userCount));
 
         // 先找到可行队伍解
         long start = System.currentTimeMillis();
-        var feasibleTeams = teamFinder.solve(units, currentTimestamp);
+        var feasibleTeams = teamFinderFor(pool.pairOperator(operator)).solve(units, currentTimestamp);
         System.out.println("[Feasible Teams] " + feasibleTeams.size() + ", Time: " + (System.currentTimeMillis() - start));
 
         // 基于可行队伍找到可行单局
@@ -112,6 +130,29 @@ public class MatchMakingDecomposeSolver implements MatchMakingSolver {
         return name;
     }
 
+    /**
+     * 匹配池提供了自己的计算器 (比如兼容图直接查询边) 时，创建使用该计算器的组队求解器，否则使用默认的组队求解器
+     */
+    private FeasibleTeamFinder teamFinderFor(MatchUnitOperator pairOperator) {
+        return pairOperator == operator ? teamFinder : new FeasibleTeamDPFinder(criteria, pairOperator);
+    }
+
+    /**
+     * 按照成员数量升序排列的匹配单元。成员数量不随时间变化，所以匹配池版本和上一次求解相同时，直接复用上次排序的结果
+     *
+     * @param snapshot 本次求解使用的快照
+     */
+    private MatchUnit[] sortedUnits(MatchMakingPoolSnapshot snapshot) {
+        var current = sorted;
+        if (current == null || !snapshot.sameVersionAs(current.snapshot())) {
+            var units = snapshot.matchUnits();
+            Arrays.sort(units, Comparator.comparingInt(MatchUnit::userCount));
+            current = new SortedUnits(snapshot, units);
+            sorted = current;
+        }
+        return current.units();
+    }
+
     private MatchMakingResults getFinalResult(MatchUnit[] units, List<FeasibleGame> games) {
         MPSolver solver = MPSolver.createSolver("SCIP");
         if (solver == null) {
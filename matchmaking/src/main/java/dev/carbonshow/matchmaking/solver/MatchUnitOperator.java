@@ -51,5 +51,17 @@ public interface MatchUnitOperator {
      */
     double getWinProbability(MatchUnit unit1, MatchUnit unit2);
 
+    /**
+     * {@link #isFitOneGame(MatchUnit, MatchUnit)} 是否只由双方的时变参数决定，并且返回 true 时，
+     * 双方的段位和实力一定都落在对方的可接纳区间 ({@code getMatchedRankRange}, {@code getMatchedSkillRange}) 之内。
+     * <p>
+     * 满足这个约定时，兼容图只和区间索引中落在可接纳区间内的候选单元比较，并且只在区间变化时补充边；
+     * 否则兼容图无法预先排除任何匹配单元对，只能退回到两两比较。默认返回 false
+     *
+     * @return true 表示满足上述约定
+     */
+    default boolean isBoundedByMatchedRanges() {
+        return false;
+    }
 
 }
@@ -0,0 +1,438 @@
+package dev.carbonshow.matchmaking;
+
+import dev.carbonshow.matchmaking.config.TimeVaryingConfig;
+import dev.carbonshow.matchmaking.pool.MatchMakingPool;
+import dev.carbonshow.matchmaking.pool.MatchMakingPoolColumnar;
+import dev.carbonshow.matchmaking.pool.MatchMakingPoolConcurrent;
+import dev.carbonshow.matchmaking.pool.MatchMakingPoolGraph;
+import dev.carbonshow.matchmaking.pool.MatchMakingPoolSnapshot;
+import dev.carbonshow.matchmaking.pool.MatchUnit;
+import dev.carbonshow.matchmaking.solver.DefaultMatchUnitOperator;
+import dev.carbonshow.matchmaking.solver.MatchUnitOperator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchMakingPoolTest {
+
+    @Test
+    void testColumnarPool() {
+        var pool = new MatchMakingPoolColumnar(TestUtilities.CRITERIA, "columnar", TimeVaryingConfig.defaultVal(), 4);
+        var expected = new HashMap<Long, MatchUnit>();
+        var ids = new ArrayList<Long>();
+        var random = new Random(7);
+
+        // 随机增删，超出初始容量后扩容，删除时最后一个槽位被移动
+        for (int i = 0; i < 2000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                var unit = TestUtilities.createMatchUnit();
+                assertTrue(pool.addMatchUnit(unit));
+                assertFalse(pool.addMatchUnit(unit));
+                expected.put(unit.matchUnitId(), unit);
+                ids.add(unit.matchUnitId());
+            } else {
+                var id = ids.remove(random.nextInt(ids.size()));
+                assertTrue(pool.removeMatchUnit(id));
+                assertFalse(pool.removeMatchUnit(id));
+                expected.remove(id);
+            }
+        }
+
+        assertEquals(pool.matchUnitCount(), expected.size());
+        assertEquals(pool.userCount(), expected.values().stream().mapToInt(MatchUnit::userCount).sum());
+        assertEquals(pool.matchUnits().length, expected.size());
+
+        // 每个槽位上的列和匹配单元一致
+        for (var unit : expected.values()) {
+            assertSame(pool.getMatchUnit(unit.matchUnitId()), unit);
+            var slot = pool.slotOf(unit.matchUnitId());
+            assertSame(pool.unitAt(slot), unit);
+            assertEquals(pool.ids()[slot], unit.matchUnitId());
+            assertEquals(pool.userCounts()[slot], unit.userCount());
+            assertEquals(pool.ranks()[slot], unit.rank());
+            assertEquals(pool.skills()[slot], unit.skill());
+            assertEquals(pool.positionMasks()[slot], unit.positionAsLong());
+            assertEquals(pool.enterTimestamps()[slot], unit.timeVaryingParameters().startTimestamp());
+        }
+        assertNull(pool.getMatchUnit(-1L));
+        assertEquals(pool.slotOf(-1L), -1);
+
+        // 更新时变参数后，可接纳区间的列同步刷新
+        pool.update(Instant.now().getEpochSecond() + 600);
+        for (int slot = 0; slot < pool.matchUnitCount(); slot++) {
+            var parameters = pool.unitAt(slot).timeVaryingParameters();
+            assertEquals(pool.minRanks()[slot], parameters.getMatchedRankRange().getMinimum().intValue());
+            assertEquals(pool.maxRanks()[slot], parameters.getMatchedRankRange().getMaximum().intValue());
+            assertEquals(pool.minSkills()[slot], parameters.getMatchedSkillRange().getMinimum().doubleValue());
+            assertEquals(pool.maxSkills()[slot], parameters.getMatchedSkillRange().getMaximum().doubleValue());
+            assertTrue(pool.minRanks()[slot] < pool.ranks()[slot]);
+        }
+    }
+
+    @Test
+    void testGraphPool() {
+        var pool = new MatchMakingPoolGraph(TestUtilities.CRITERIA, "graph", TimeVaryingConfig.defaultVal());
+        var expected = new HashMap<Long, MatchUnit>();
+        var ids = new ArrayList<Long>();
+        var random = new Random(11);
+
+        // 随机增删，ID 索引在扩容和向后移位删除之后仍然和 HashMap 一致
+        for (int i = 0; i < 5000; i++) {
+            if (ids.isEmpty() || random.nextInt(3) > 0) {
+                var unit = TestUtilities.createMatchUnit();
+                assertTrue(pool.addMatchUnit(unit));
+                assertFalse(pool.addMatchUnit(unit));
+                expected.put(unit.matchUnitId(), unit);
+                ids.add(unit.matchUnitId());
+            } else {
+                var id = ids.remove(random.nextInt(ids.size()));
+                assertTrue(pool.removeMatchUnit(id));
+                assertFalse(pool.removeMatchUnit(id));
+                expected.remove(id);
+            }
+        }
+
+        assertEquals(pool.matchUnitCount(), expected.size());
+        assertEquals(pool.userCount(), expected.values().stream().mapToInt(MatchUnit::userCount).sum());
+        assertEquals(pool.getGraph().vertexSet().size(), expected.size());
+        for (var unit : expected.values()) {
+            assertSame(pool.getMatchUnit(unit.matchUnitId()), unit);
+        }
+        assertNull(pool.getMatchUnit(-1L));
+
+        var units = pool.matchUnits();
+        assertEquals(units.length, expected.size());
+        for (var unit : units) {
+            assertSame(expected.get(unit.matchUnitId()), unit);
+        }
+    }
+
+    @Test
+    void testGraphPoolEdges() {
+        var config = TimeVaryingConfig.defaultVal();
+        var operator = new DefaultMatchUnitOperator(TestUtilities.CRITERIA, config);
+        var pool = new MatchMakingPoolGraph(TestUtilities.CRITERIA, "graph", config);
+        var random = new Random(13);
+        var ids = new ArrayList<Long>();
+        long now = Instant.now().getEpochSecond();
+
+        // 每个 tick 增删一部分单元，然后放宽区间，增量维护的边必须和两两比较的结果完全一致
+        for (int tick = 0; tick < 15; tick++) {
+            for (int i = 0; i < 40; i++) {
+                var unit = TestUtilities.createMatchUnit();
+                unit.timeVaryingParameters().update(now, config);
+                assertTrue(pool.addMatchUnit(unit));
+                ids.add(unit.matchUnitId());
+            }
+            for (int i = 0; i < 10; i++) {
+                assertTrue(pool.removeMatchUnit(ids.remove(random.nextInt(ids.size()))));
+            }
+            assertEdgesComplete(pool, operator);
+
+            now += 60;
+            pool.update(now);
+            assertEdgesComplete(pool, operator);
+        }
+        assertTrue(pool.getGraph().edgeSet().size() > 0);
+
+        // 基于边的计算器和区间比较的结果一致
+        var units = pool.matchUnits();
+        var adjacency = pool.adjacencyOperator();
+        assertSame(pool.pairOperator(operator), adjacency);
+        // 求解器使用相同配置新建的计算器同样可以查询边，规则不同的计算器原样返回
+        assertSame(pool.pairOperator(new DefaultMatchUnitOperator(TestUtilities.CRITERIA, config)), adjacency);
+        var stricter = new DefaultMatchUnitOperator(TestUtilities.CRITERIA, config) {
+            @Override
+            public boolean isFitOneTeam(MatchUnit unit1, MatchUnit unit2) {
+                return false;
+            }
+        };
+        assertSame(pool.pairOperator(stricter), stricter);
+        for (int i = 0; i < units.length; i++) {
+            for (int j = i + 1; j < units.length; j++) {
+                assertEquals(adjacency.isFitOneGame(units[i], units[j]), operator.isFitOneGame(units[i], units[j]));
+                assertEquals(adjacency.isFitOneTeam(units[i], units[j]), operator.isFitOneTeam(units[i], units[j]));
+            }
+        }
+    }
+
+    @Test
+    void testGraphPoolUnboundedOperator() {
+        var config = TimeVaryingConfig.defaultVal();
+        // 段位奇偶相同的单元也可以匹配，不要求落在对方的可接纳区间内
+        var operator = new DefaultMatchUnitOperator(TestUtilities.CRITERIA, config) {
+            @Override
+            public boolean isFitOneGame(MatchUnit unit1, MatchUnit unit2) {
+                return super.isFitOneGame(unit1, unit2)
+                        || (unit1.timeVaryingParameters().getRank() - unit2.timeVaryingParameters().getRank()) % 2 == 0;
+            }
+
+            @Override
+            public boolean isBoundedByMatchedRanges() {
+                return false;
+            }
+        };
+        var pool = new MatchMakingPoolGraph(TestUtilities.CRITERIA, "graph", config, operator);
+        var units = new ArrayList<MatchUnit>();
+        long now = Instant.now().getEpochSecond();
+
+        // 区间索引不能排除任何候选单元，边必须和两两比较的结果完全一致
+        for (int tick = 0; tick < 5; tick++) {
+            for (int i = 0; i < 30; i++) {
+                var unit = TestUtilities.createMatchUnit();
+                unit.timeVaryingParameters().update(now, config);
+                assertTrue(pool.addMatchUnit(unit));
+                units.add(unit);
+            }
+            assertTrue(pool.removeMatchUnit(units.remove(0).matchUnitId()));
+            assertEdgesComplete(pool, operator);
+
+            now += 60;
+            pool.update(now);
+            assertEdgesComplete(pool, operator);
+        }
+    }
+
+    /**
+     * 图中的边恰好是所有可以进入同一单局的匹配单元对
+     */
+    private static void assertEdgesComplete(MatchMakingPoolGraph pool, MatchUnitOperator operator) {
+        var graph = pool.getGraph();
+        var units = pool.matchUnits();
+        assertEquals(graph.vertexSet().size(), units.length);
+        int expected = 0;
+        for (int i = 0; i < units.length; i++) {
+            for (int j = i + 1; j < units.length; j++) {
+                var fit = operator.isFitOneGame(units[i], units[j]);
+                assertEquals(graph.containsEdge(units[i], units[j]), fit);
+                expected += fit ? 1 : 0;
+            }
+        }
+        assertEquals(graph.edgeSet().size(), expected);
+    }
+
+    @Test
+    void testConcurrentPool() throws Exception {
+        final int threadCount = 8;
+        final int unitsPerThread = 2000;
+        final int rounds = 20;
+        var pool = new MatchMakingPoolConcurrent(TestUtilities.CRITERIA, "concurrent", TimeVaryingConfig.defaultVal(), threadCount);
+
+        // 匹配单元在主线程中创建，每个线程有自己的匹配单元，另外还有一组所有线程争抢的共享匹配单元
+        var ownUnits = new ArrayList<MatchUnit[]>();
+        for (int t = 0; t < threadCount; t++) {
+            var units = new MatchUnit[unitsPerThread];
+            for (int i = 0; i < unitsPerThread; i++) {
+                units[i] = TestUtilities.createMatchUnit();
+            }
+            ownUnits.add(units);
+        }
+        var sharedUnits = new MatchUnit[100];
+        for (int i = 0; i < sharedUnits.length; i++) {
+            sharedUnits[i] = TestUtilities.createMatchUnit();
+        }
+        var sharedAdded = new AtomicInteger();
+        var sharedRemoved = new AtomicInteger();
+
+        // 每个线程还有一个反复重新排队的小队：取消旧的匹配单元，再以新的 ID、相同的玩家加入，新旧单元可能位于不同的分段
+        final int requeueInterval = 20;
+        var parties = new ArrayList<MatchUnit[]>();
+        for (int t = 0; t < threadCount; t++) {
+            var base = TestUtilities.createMatchUnit();
+            var party = new MatchUnit[rounds * unitsPerThread / requeueInterval + 1];
+            for (int k = 0; k < party.length; k++) {
+                party[k] = new MatchUnit(TestUtilities.ID.addAndGet(1L), base.userIds(), base.expectedWinProbability(),
+                        base.relayLatency(), base.timeVaryingParameters());
+            }
+            parties.add(party);
+        }
+
+        var executor = Executors.newFixedThreadPool(threadCount + 1);
+        var start = new CountDownLatch(1);
+        var writing = new AtomicBoolean(true);
+        var writers = new ArrayList<Future<boolean[]>>();
+        for (int t = 0; t < threadCount; t++) {
+            final var units = ownUnits.get(t);
+            final var party = parties.get(t);
+            final var random = new Random(t);
+            writers.add(executor.submit(() -> {
+                var present = new boolean[units.length];
+                int requeued = 0;
+                start.await();
+                assertTrue(pool.addMatchUnit(party[0]));
+                for (int round = 0; round < rounds; round++) {
+                    for (int i = 0; i < units.length; i++) {
+                        if (i % requeueInterval == 0) {
+                            assertTrue(pool.removeMatchUnit(party[requeued].matchUnitId()));
+                            assertTrue(pool.addMatchUnit(party[++requeued]));
+                        }
+                        if (random.nextBoolean()) {
+                            if (present[i]) {
+                                assertTrue(pool.removeMatchUnit(units[i].matchUnitId()));
+                            } else {
+                                assertTrue(pool.addMatchUnit(units[i]));
+                            }
+                            present[i] = !present[i];
+                        }
+                    }
+
+                    // 同一个共享单元同时只有一个线程能加入成功，由加入成功的线程负责删除
+                    for (var unit : sharedUnits) {
+                        if (pool.addMatchUnit(unit)) {
+                            sharedAdded.incrementAndGet();
+                            assertFalse(pool.addMatchUnit(unit));
+                            assertTrue(pool.removeMatchUnit(unit.matchUnitId()));
+                            sharedRemoved.incrementAndGet();
+                        }
+                    }
+                }
+                return present;
+            }));
+        }
+
+        // 写入的同时不断获取快照，每个快照内部必须是一致的，重新排队的小队不会同时以新旧两个单元出现
+        var snapshots = executor.submit(() -> {
+            int count = 0;
+            start.await();
+            while (writing.get()) {
+                assertConsistent(pool.snapshot());
+                count++;
+            }
+            return count;
+        });
+
+        start.countDown();
+        var expected = new HashMap<Long, MatchUnit>();
+        for (int t = 0; t < threadCount; t++) {
+            var present = writers.get(t).get(60, TimeUnit.SECONDS);
+            var party = parties.get(t);
+            expected.put(party[party.length - 1].matchUnitId(), party[party.length - 1]);
+            for (int i = 0; i < unitsPerThread; i++) {
+                if (present[i]) {
+                    expected.put(ownUnits.get(t)[i].matchUnitId(), ownUnits.get(t)[i]);
+                }
+            }
+        }
+        writing.set(false);
+        assertTrue(snapshots.get(60, TimeUnit.SECONDS) > 0);
+        executor.shutdown();
+
+        assertTrue(sharedAdded.get() > 0);
+        assertEquals(sharedAdded.get(), sharedRemoved.get());
+
+        // 所有写入结束后，实时状态和最后的快照都和预期一致
+        var snapshot = pool.snapshot();
+        assertSame(snapshot, pool.snapshot());
+        assertConsistent(snapshot);
+        assertEquals(snapshot.matchUnitCount(), expected.size());
+        assertEquals(pool.matchUnitCount(), expected.size());
+        assertEquals(pool.userCount(), expected.values().stream().mapToInt(MatchUnit::userCount).sum());
+        for (var unit : expected.values()) {
+            assertSame(pool.getMatchUnit(unit.matchUnitId()), unit);
+            assertSame(snapshot.getMatchUnit(unit.matchUnitId()), unit);
+        }
+        for (var unit : sharedUnits) {
+            assertNull(pool.getMatchUnit(unit.matchUnitId()));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.addMatchUnit(sharedUnits[0]));
+
+        // 之后的写入不影响已经得到的快照
+        assertTrue(pool.addMatchUnit(sharedUnits[0]));
+        assertNull(snapshot.getMatchUnit(sharedUnits[0].matchUnitId()));
+        assertEquals(pool.snapshot().matchUnitCount(), expected.size() + 1);
+    }
+
+    @Test
+    void testSnapshot() {
+        var pools = new MatchMakingPool[]{
+                new MatchMakingPoolGraph(TestUtilities.CRITERIA, "graph", TimeVaryingConfig.defaultVal()),
+                new MatchMakingPoolColumnar(TestUtilities.CRITERIA, "columnar", TimeVaryingConfig.defaultVal()),
+                new MatchMakingPoolConcurrent(TestUtilities.CRITERIA, "concurrent", TimeVaryingConfig.defaultVal())
+        };
+        var units = new MatchUnit[50];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = TestUtilities.createMatchUnit();
+        }
+
+        for (var pool : pools) {
+            for (var unit : units) {
+                pool.addMatchUnit(unit);
+            }
+
+            // 没有修改时返回同一个快照，版本号和匹配池一致
+            var snapshot = pool.snapshot();
+            assertSame(snapshot, pool.snapshot());
+            assertTrue(snapshot.isCurrent());
+            assertEquals(snapshot.version(), pool.version());
+            assertConsistent(snapshot);
+            assertEquals(snapshot.size(), units.length);
+            var ids = new HashSet<Long>();
+            for (int i = 0; i < snapshot.size(); i++) {
+                ids.add(snapshot.get(i).matchUnitId());
+            }
+            assertEquals(ids.size(), units.length);
+
+            // 失败的修改不改变版本号
+            assertFalse(pool.addMatchUnit(units[0]));
+            assertFalse(pool.removeMatchUnit(-1L));
+            assertTrue(pool.snapshot().sameVersionAs(snapshot));
+
+            // 成功的修改之后，旧的快照过期，新的快照版本号不同
+            assertTrue(pool.removeMatchUnit(units[0].matchUnitId()));
+            assertFalse(snapshot.isCurrent());
+            if (pool instanceof MatchMakingPoolConcurrent) {
+                // 并发匹配池的快照是独立的拷贝，过期之后仍然可以读取
+                assertEquals(snapshot.matchUnits().length, units.length);
+                assertSame(snapshot.getMatchUnit(units[0].matchUnitId()), units[0]);
+            } else {
+                // 直接引用内部数组的快照过期之后不能再读取
+                assertThrows(ConcurrentModificationException.class, () -> snapshot.get(0));
+                assertThrows(ConcurrentModificationException.class, () -> snapshot.getMatchUnit(units[1].matchUnitId()));
+                assertThrows(ConcurrentModificationException.class, snapshot::matchUnits);
+            }
+            var next = pool.snapshot();
+            assertNotSame(next, snapshot);
+            assertFalse(next.sameVersionAs(snapshot));
+            assertTrue(next.isCurrent());
+            assertEquals(next.size(), units.length - 1);
+            assertNull(next.getMatchUnit(units[0].matchUnitId()));
+            assertSame(next.getMatchUnit(units[1].matchUnitId()), units[1]);
+            assertConsistent(next);
+            assertThrows(UnsupportedOperationException.class, () -> next.removeMatchUnit(units[1].matchUnitId()));
+            assertThrows(IndexOutOfBoundsException.class, () -> next.get(next.size()));
+        }
+
+        // 不同匹配池的快照，即使版本号相同也不是同一个版本
+        assertEquals(pools[0].version(), pools[1].version());
+        assertFalse(pools[0].snapshot().sameVersionAs(pools[1].snapshot()));
+    }
+
+    /**
+     * 快照中的匹配单元和玩家都互不重复，数量和人数与匹配单元一致
+     */
+    private static void assertConsistent(MatchMakingPool snapshot) {
+        var units = snapshot.matchUnits();
+        var ids = new HashSet<Long>();
+        var userIds = new HashSet<Long>();
+        int userCount = 0;
+        for (var unit : units) {
+            assertTrue(ids.add(unit.matchUnitId()));
+            for (var userId : unit.userIds()) {
+                assertTrue(userIds.add(userId), "user " + userId + " appears in two match units");
+            }
+            userCount += unit.userCount();
+        }
+        assertEquals(snapshot.matchUnitCount(), units.length);
+        assertEquals(snapshot.userCount(), userCount);
+    }
+}